@@ -0,0 +1,30 @@
+package com.dsva.benchmark;
+
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.DSNeighbours;
+import com.dsva.util.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BenchmarkTopology {
+
+    private BenchmarkTopology() {
+        throw new UnsupportedOperationException("Can not init static class");
+    }
+
+    public static Address buildAddress(int nodeId) {
+        return new Address(Constants.HOSTNAME, Utils.getNodePortFromNodeId(nodeId), nodeId);
+    }
+
+    public static DSNeighbours buildNeighbours(int clusterSize) {
+        DSNeighbours neighbours = new DSNeighbours(buildAddress(0));
+        List<Address> addresses = new ArrayList<>(clusterSize);
+        for (int nodeId = 1; nodeId <= clusterSize; nodeId++) {
+            addresses.add(buildAddress(nodeId));
+        }
+        neighbours.applySnapshot(1, clusterSize, 1, addresses);
+        return neighbours;
+    }
+}
@@ -0,0 +1,331 @@
+package com.dsva.benchmark;
+
+import com.dsva.Node;
+import com.dsva.exception.NodeNotFoundException;
+import com.dsva.metrics.MetricNames;
+import com.dsva.model.Constants;
+import com.dsva.transport.InProcessTransportFactory;
+import com.dsva.transport.NettyTransportFactory;
+import com.dsva.transport.TransportFactory;
+import com.dsva.util.ExecutorFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+public class ClusterBenchmark {
+
+    private static final Set<String> ELECTION_METHODS = Set.of("StartElection", "GrantLeadership", "AnnounceLeader", "UpdateTopology",
+            "ApplyTopologyDelta", "Join");
+    private static final int CLUSTER_SIZE = Integer.getInteger("dsva.bench.nodes", 5);
+    private static final String TRANSPORT = System.getProperty("dsva.bench.transport", "inprocess");
+    private static final int RELAY_MESSAGES = Integer.getInteger("dsva.bench.messages", 10_000);
+    private static final int RELAY_MAX_IN_FLIGHT = Integer.getInteger("dsva.bench.inFlight", 256);
+    private static final int BROADCASTS = Integer.getInteger("dsva.bench.broadcasts", 200);
+    private static final long CONVERGENCE_TIMEOUT = Long.getLong("dsva.bench.convergenceTimeout", 60_000);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final RpcCounter rpcCounter = new RpcCounter();
+    private final TransportFactory transportFactory = new CountingTransportFactory(buildTransportFactory(), rpcCounter);
+
+    public static void main(String[] args) throws Exception {
+        if (CLUSTER_SIZE < 2) {
+            throw new IllegalArgumentException("At least two nodes are required, got " + CLUSTER_SIZE);
+        }
+        Path output = Path.of(args.length > 0 ? args[0] : "cluster-benchmark.json");
+        ClusterBenchmark benchmark = new ClusterBenchmark();
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("transport", TRANSPORT);
+        results.put("clusterSize", CLUSTER_SIZE);
+        results.put("threadMode", Constants.THREAD_MODE.name().toLowerCase(Locale.ROOT));
+        results.put("electionAlgorithm", Constants.ELECTION_ALGORITHM.name().toLowerCase(Locale.ROOT));
+        results.put("routingMode", Constants.ROUTING_MODE.name().toLowerCase(Locale.ROOT));
+        results.put("leaderCrash", benchmark.leaderCrash());
+        results.put("lateHighestJoiner", benchmark.lateHighestJoiner());
+        results.put("concurrentJoins", benchmark.concurrentJoins());
+        results.put("sustainedRelay", benchmark.sustainedRelay());
+        results.put("broadcast", benchmark.broadcast());
+
+        String json = toJson(results);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, json, StandardCharsets.UTF_8);
+        System.out.println(json);
+        System.out.println("Results written to " + output.toAbsolutePath());
+        System.exit(0);
+    }
+
+    private Map<String, Object> leaderCrash() throws InterruptedException, TimeoutException {
+        try (LocalCluster cluster = bootCluster(CLUSTER_SIZE)) {
+            resetCounters();
+            cluster.forceQuit(cluster.getLeaderId());
+            return convergenceResult("timeToNewLeaderMillis", cluster.awaitConvergence(CONVERGENCE_TIMEOUT));
+        }
+    }
+
+    private Map<String, Object> lateHighestJoiner() throws InterruptedException, TimeoutException {
+        try (LocalCluster cluster = bootCluster(CLUSTER_SIZE - 1)) {
+            resetCounters();
+            long start = System.nanoTime();
+            cluster.startNode(CLUSTER_SIZE);
+            cluster.awaitConvergence(CONVERGENCE_TIMEOUT);
+            return convergenceResult("timeToConvergeMillis", System.nanoTime() - start);
+        }
+    }
+
+    private Map<String, Object> concurrentJoins() throws InterruptedException, TimeoutException {
+        int initialSize = Math.max(1, CLUSTER_SIZE / 2);
+        ExecutorService joinExecutor = Executors.newFixedThreadPool(CLUSTER_SIZE - initialSize,
+                ExecutorFactory.daemonThreadFactory("bench-join"));
+        try (LocalCluster cluster = bootCluster(initialSize)) {
+            resetCounters();
+            long start = System.nanoTime();
+            List<CompletableFuture<Node>> joins = new ArrayList<>();
+            for (int nodeId = initialSize + 1; nodeId <= CLUSTER_SIZE; nodeId++) {
+                int joiningNodeId = nodeId;
+                joins.add(CompletableFuture.supplyAsync(() -> cluster.startNode(joiningNodeId), joinExecutor));
+            }
+            CompletableFuture.allOf(joins.toArray(CompletableFuture[]::new)).join();
+            cluster.awaitConvergence(CONVERGENCE_TIMEOUT);
+            Map<String, Object> result = convergenceResult("timeToConvergeMillis", System.nanoTime() - start);
+            result.put("joiningNodes", CLUSTER_SIZE - initialSize);
+            return result;
+        } finally {
+            joinExecutor.shutdownNow();
+        }
+    }
+
+    private Map<String, Object> sustainedRelay() throws InterruptedException, TimeoutException {
+        try (LocalCluster cluster = bootCluster(Math.max(3, CLUSTER_SIZE))) {
+            int leaderId = cluster.getLeaderId();
+            List<Node> followers = cluster.getRunningNodes().stream()
+                    .filter(node -> node.getNodeId() != leaderId)
+                    .toList();
+            long[] latencies = new long[RELAY_MESSAGES];
+            boolean[] delivered = new boolean[RELAY_MESSAGES];
+            Semaphore inFlight = new Semaphore(RELAY_MAX_IN_FLIGHT);
+            List<CompletableFuture<Boolean>> sent = new ArrayList<>(RELAY_MESSAGES);
+
+            resetCounters();
+            long start = System.nanoTime();
+            for (int i = 0; i < RELAY_MESSAGES; i++) {
+                Node sender = followers.get(ThreadLocalRandom.current().nextInt(followers.size()));
+                Node receiver = pickOtherNode(followers, sender);
+                inFlight.acquire();
+                int index = i;
+                long sentAt = System.nanoTime();
+                sent.add(sendRelayMessage(sender, receiver, "bench-" + i).whenComplete((ack, t) -> {
+                    latencies[index] = System.nanoTime() - sentAt;
+                    delivered[index] = t == null && Boolean.TRUE.equals(ack);
+                    inFlight.release();
+                }));
+            }
+            CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new)).exceptionally(t -> null).join();
+            long elapsed = System.nanoTime() - start;
+
+            int deliveredCount = 0;
+            for (boolean ack : delivered) {
+                deliveredCount += ack ? 1 : 0;
+            }
+            Arrays.sort(latencies);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("messages", RELAY_MESSAGES);
+            result.put("delivered", deliveredCount);
+            result.put("maxInFlight", RELAY_MAX_IN_FLIGHT);
+            result.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(elapsed));
+            result.put("messagesPerSecond", RELAY_MESSAGES * 1_000_000_000.0 / elapsed);
+            result.put("p50Micros", percentileMicros(latencies, 0.50));
+            result.put("p99Micros", percentileMicros(latencies, 0.99));
+            result.put("maxMicros", percentileMicros(latencies, 1.0));
+            result.put("rpcMessages", rpcCounter.snapshot());
+            result.put("routing", routingStats(cluster.getRunningNodes()));
+            result.put("threads", threadStats());
+            return result;
+        }
+    }
+
+    private Map<String, Object> broadcast() throws InterruptedException, TimeoutException {
+        try (LocalCluster cluster = bootCluster(CLUSTER_SIZE)) {
+            List<Node> nodes = List.copyOf(cluster.getRunningNodes());
+            long[] latencies = new long[BROADCASTS];
+            int fullyReached = 0;
+
+            resetCounters();
+            for (int i = 0; i < BROADCASTS; i++) {
+                Node sender = nodes.get(i % nodes.size());
+                long sentAt = System.nanoTime();
+                int reachedNodes = sender.getClient().broadcast("bench-broadcast-" + i).join();
+                latencies[i] = System.nanoTime() - sentAt;
+                fullyReached += reachedNodes == nodes.size() ? 1 : 0;
+            }
+
+            Arrays.sort(latencies);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("broadcasts", BROADCASTS);
+            result.put("fullyReached", fullyReached);
+            result.put("p50Micros", percentileMicros(latencies, 0.50));
+            result.put("p99Micros", percentileMicros(latencies, 0.99));
+            result.put("rpcMessages", rpcCounter.snapshot());
+            result.put("threads", threadStats());
+            return result;
+        }
+    }
+
+    private LocalCluster bootCluster(int clusterSize) throws InterruptedException, TimeoutException {
+        clearNodeState();
+        LocalCluster cluster = new LocalCluster(transportFactory);
+        try {
+            for (int nodeId = 1; nodeId <= clusterSize; nodeId++) {
+                cluster.startNode(nodeId);
+            }
+            cluster.awaitConvergence(CONVERGENCE_TIMEOUT);
+            return cluster;
+        } catch (InterruptedException | TimeoutException | RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+    }
+
+    private Map<String, Object> convergenceResult(String durationName, long elapsedNanos) {
+        Map<String, Long> rpcMessages = rpcCounter.snapshot();
+        long electionMessages = rpcMessages.entrySet().stream()
+                .filter(entry -> ELECTION_METHODS.contains(entry.getKey()))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(durationName, elapsedNanos / 1_000_000.0);
+        result.put("electionMessages", electionMessages);
+        result.put("rpcMessages", rpcMessages);
+        result.put("threads", threadStats());
+        return result;
+    }
+
+    private void resetCounters() {
+        rpcCounter.reset();
+        THREAD_MX_BEAN.resetPeakThreadCount();
+    }
+
+    /**
+     * Every scenario reuses node ids 1..N in the same JVM, so the message logs and leader caches left by the
+     * previous scenario are removed; otherwise the new cluster would replay its messages and probe its leader.
+     */
+    private static void clearNodeState() {
+        try {
+            deleteMatching(Path.of(Constants.WAL_DIRECTORY), "node-\\d+");
+            deleteMatching(Path.of(Constants.LEADER_CACHE_DIRECTORY), "dsva-node-\\d+\\.leader");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot clear the state of the previous cluster", e);
+        }
+    }
+
+    private static void deleteMatching(Path directory, String fileNamePattern) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> matches;
+        try (Stream<Path> files = Files.list(directory)) {
+            matches = files.filter(path -> path.getFileName().toString().matches(fileNamePattern)).toList();
+        }
+        for (Path match : matches) {
+            try (Stream<Path> files = Files.walk(match)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> routingStats(Collection<Node> nodes) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String counterName : List.of(MetricNames.ROUTING_DIRECT, MetricNames.ROUTING_VIA_LEADER,
+                MetricNames.ROUTING_FALLBACKS)) {
+            result.put(counterName, nodes.stream()
+                    .mapToLong(node -> node.getMetricsRegistry().counter(counterName).sum())
+                    .sum());
+        }
+        return result;
+    }
+
+    /**
+     * Platform thread counts as seen by the JVM. Virtual threads are not included, so in virtual mode these
+     * show how many carrier and service threads remain.
+     */
+    private static Map<String, Object> threadStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("livePlatformThreads", THREAD_MX_BEAN.getThreadCount());
+        result.put("peakPlatformThreads", THREAD_MX_BEAN.getPeakThreadCount());
+        result.put("startedPlatformThreads", THREAD_MX_BEAN.getTotalStartedThreadCount());
+        return result;
+    }
+
+    private static CompletableFuture<Boolean> sendRelayMessage(Node sender, Node receiver, String message) {
+        try {
+            return sender.getClient().sendMessageAsync(receiver.getNodeId(), message);
+        } catch (NodeNotFoundException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    private static Node pickOtherNode(List<Node> nodes, Node excluded) {
+        Node picked;
+        do {
+            picked = nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+        } while (picked == excluded && nodes.size() > 1);
+        return picked;
+    }
+
+    private static double percentileMicros(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1_000.0;
+    }
+
+    private static TransportFactory buildTransportFactory() {
+        return switch (TRANSPORT) {
+            case "inprocess" -> new InProcessTransportFactory();
+            case "netty" -> new NettyTransportFactory();
+            default -> throw new IllegalArgumentException("Unknown transport: " + TRANSPORT);
+        };
+    }
+
+    private static String toJson(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            StringBuilder json = new StringBuilder("{");
+            map.forEach((key, entry) -> {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(key).append("\":").append(toJson(entry));
+            });
+            return json.append('}').toString();
+        }
+        if (value instanceof Double number) {
+            return String.format(Locale.ROOT, "%.3f", number);
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return '"' + String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
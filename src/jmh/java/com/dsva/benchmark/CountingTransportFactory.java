@@ -0,0 +1,27 @@
+package com.dsva.benchmark;
+
+import com.dsva.model.Address;
+import com.dsva.transport.TransportFactory;
+import io.grpc.ManagedChannel;
+import io.grpc.ServerBuilder;
+
+public class CountingTransportFactory implements TransportFactory {
+
+    private final TransportFactory delegate;
+    private final RpcCounter rpcCounter;
+
+    public CountingTransportFactory(TransportFactory delegate, RpcCounter rpcCounter) {
+        this.delegate = delegate;
+        this.rpcCounter = rpcCounter;
+    }
+
+    @Override
+    public ServerBuilder<?> buildServer(Address address) {
+        return delegate.buildServer(address).intercept(rpcCounter);
+    }
+
+    @Override
+    public ManagedChannel buildChannel(Address address) {
+        return delegate.buildChannel(address);
+    }
+}
@@ -0,0 +1,65 @@
+package com.dsva.benchmark;
+
+import com.dsva.model.Address;
+import com.dsva.exception.NodeNotFoundException;
+import com.dsva.model.DSNeighbours;
+import com.proto.chat_bully.AvailableNodesAddressesList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DSNeighboursBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int clusterSize;
+
+    private DSNeighbours neighbours;
+    private Address joiningAddress;
+    private int middleNodeId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        neighbours = BenchmarkTopology.buildNeighbours(clusterSize);
+        joiningAddress = BenchmarkTopology.buildAddress(clusterSize + 1);
+        middleNodeId = clusterSize / 2;
+    }
+
+    @Benchmark
+    public List<Address> getHigherNodesFromMiddle() {
+        return neighbours.getHigherNodes(middleNodeId);
+    }
+
+    @Benchmark
+    public List<Address> getHigherNodesFromLowest() {
+        return neighbours.getHigherNodes(0);
+    }
+
+    @Benchmark
+    public AvailableNodesAddressesList getAvailableNodesProtoAddresses() {
+        return neighbours.getAvailableNodesProtoAddresses();
+    }
+
+    @Benchmark
+    public Address getTargetNodeAddress() throws NodeNotFoundException {
+        return neighbours.getTargetNodeAddress(middleNodeId);
+    }
+
+    @Benchmark
+    public DSNeighbours addAndRemoveNode() {
+        neighbours.addNewNode(joiningAddress);
+        neighbours.removeNode(joiningAddress.nodeId());
+        return neighbours;
+    }
+}
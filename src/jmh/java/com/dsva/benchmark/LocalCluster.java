@@ -0,0 +1,102 @@
+package com.dsva.benchmark;
+
+import com.dsva.Node;
+import com.dsva.model.Address;
+import com.dsva.pattern.command.QuitCommandHandler;
+import com.dsva.transport.TransportFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeoutException;
+
+public class LocalCluster implements AutoCloseable {
+
+    private static final long POLL_INTERVAL = 5;
+
+    private final TransportFactory transportFactory;
+    private final ConcurrentSkipListMap<Integer, Node> runningNodes = new ConcurrentSkipListMap<>();
+
+    public LocalCluster(TransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    public Node startNode(int nodeId) {
+        Node node = new Node(nodeId, transportFactory);
+        try {
+            node.startServer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start node " + nodeId, e);
+        }
+        runningNodes.put(nodeId, node);
+        return node;
+    }
+
+    public void forceQuit(int nodeId) {
+        Node node = runningNodes.remove(nodeId);
+        if (node != null) {
+            new QuitCommandHandler().handle(new String[]{"--force"}, node);
+        }
+    }
+
+    public Node getNode(int nodeId) {
+        return runningNodes.get(nodeId);
+    }
+
+    public Collection<Node> getRunningNodes() {
+        return runningNodes.values();
+    }
+
+    public int getHighestNodeId() {
+        return runningNodes.lastKey();
+    }
+
+    public int getLeaderId() {
+        return runningNodes.values().stream()
+                .filter(Node::isLeader)
+                .mapToInt(Node::getNodeId)
+                .max()
+                .orElse(-1);
+    }
+
+    public long awaitConvergence(long timeoutMillis) throws InterruptedException, TimeoutException {
+        long start = System.nanoTime();
+        long deadline = start + timeoutMillis * 1_000_000;
+        while (!isConverged()) {
+            if (System.nanoTime() > deadline) {
+                throw new TimeoutException("Cluster did not converge within " + timeoutMillis + " ms");
+            }
+            Thread.sleep(POLL_INTERVAL);
+        }
+        return System.nanoTime() - start;
+    }
+
+    public boolean isConverged() {
+        // With leader leases a healthy leader keeps leading after higher nodes join, so any single leader converges.
+        if (runningNodes.values().stream().filter(Node::isLeader).count() != 1) {
+            return false;
+        }
+        int expectedLeaderId = getLeaderId();
+        int expectedKnownNodes = runningNodes.size() - 1;
+        for (Node node : runningNodes.values()) {
+            Address leaderAddress = node.getClient().getLeaderAddress();
+            if (leaderAddress == null || leaderAddress.nodeId() != expectedLeaderId) {
+                return false;
+            }
+            if (node.getClient().getMyNeighbours().getKnownNodes().size() < expectedKnownNodes) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        List<Node> nodes = new ArrayList<>(runningNodes.values());
+        runningNodes.clear();
+        nodes.forEach(Node::stop);
+    }
+}
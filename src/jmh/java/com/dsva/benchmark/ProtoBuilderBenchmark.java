@@ -0,0 +1,81 @@
+package com.dsva.benchmark;
+
+import com.dsva.model.Address;
+import com.dsva.model.DSNeighbours;
+import com.dsva.pattern.builder.ProtoModelBuilder;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.dsva.util.Utils;
+import com.proto.chat_bully.AvailableNodesAddressesList;
+import com.proto.chat_bully.JoinResponse;
+import com.proto.chat_bully.TopologyDeltaRequest;
+import com.proto.chat_bully.UpdateTopologyRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProtoBuilderBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int clusterSize;
+
+    private DSNeighbours neighbours;
+    private AvailableNodesAddressesList availableNodesAddressesList;
+    private List<Address> addresses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        neighbours = BenchmarkTopology.buildNeighbours(clusterSize);
+        availableNodesAddressesList = neighbours.getAvailableNodesProtoAddresses();
+        addresses = new ArrayList<>(neighbours.getKnownNodes().values());
+    }
+
+    @Benchmark
+    public void buildProtoAddresses(Blackhole blackhole) {
+        for (Address address : addresses) {
+            blackhole.consume(ProtoModelBuilder.buildProtoAddress(address.port(), address.nodeId(), address.hostname()));
+        }
+    }
+
+    @Benchmark
+    public void convertProtoModelToModelAddress(Blackhole blackhole) {
+        for (com.proto.chat_bully.Address protoAddress : availableNodesAddressesList.getAddressesList()) {
+            blackhole.consume(Utils.convertProtoModelToModelAddress(protoAddress));
+        }
+    }
+
+    @Benchmark
+    public UpdateTopologyRequest buildUpdateTopologyRequest() {
+        return RequestBuilder.buildUpdateTopologyRequest(availableNodesAddressesList, 1, clusterSize, 1);
+    }
+
+    @Benchmark
+    public TopologyDeltaRequest buildTopologyDeltaRequest() {
+        return RequestBuilder.buildTopologyDeltaRequest(1, clusterSize, 1, addresses, List.of());
+    }
+
+    @Benchmark
+    public JoinResponse buildJoinResponse() {
+        return ResponseBuilder.buildJoinResponse(true, ProtoModelBuilder.buildProtoLeader(neighbours),
+                availableNodesAddressesList, 1, 1);
+    }
+
+    @Benchmark
+    public byte[] serializeUpdateTopologyRequest() {
+        return RequestBuilder.buildUpdateTopologyRequest(availableNodesAddressesList, 1, clusterSize, 1).toByteArray();
+    }
+}
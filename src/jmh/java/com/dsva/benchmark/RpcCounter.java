@@ -0,0 +1,41 @@
+package com.dsva.benchmark;
+
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RpcCounter implements ServerInterceptor {
+
+    private final ConcurrentHashMap<String, LongAdder> receivedMessages = new ConcurrentHashMap<>();
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        LongAdder counter = receivedMessages.computeIfAbsent(call.getMethodDescriptor().getBareMethodName(),
+                method -> new LongAdder());
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+            @Override
+            public void onMessage(ReqT message) {
+                counter.increment();
+                super.onMessage(message);
+            }
+        };
+    }
+
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        receivedMessages.forEach((method, counter) -> snapshot.put(method, counter.sum()));
+        return snapshot;
+    }
+
+    public void reset() {
+        receivedMessages.values().forEach(LongAdder::reset);
+    }
+}
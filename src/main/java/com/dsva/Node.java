@@ -1,15 +1,21 @@
 package com.dsva;
 
 import com.dsva.client.Client;
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.metrics.MetricsServerInterceptor;
 import com.dsva.model.Address;
 import com.dsva.model.Constants;
 import com.dsva.model.DSNeighbours;
+import com.dsva.model.MembershipMode;
 import com.dsva.model.NodeState;
 import com.dsva.server.ServerImpl;
 import com.dsva.service.ConsoleHandlerService;
+import com.dsva.service.ElectionScheduler;
 import com.dsva.service.TopologyService;
+import com.dsva.transport.NettyTransportFactory;
+import com.dsva.transport.TransportFactory;
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -24,9 +30,14 @@ public class Node {
     @Setter
     private boolean isLeader;
     private Server server;
+    private ServerImpl serverImpl;
     @Getter
     private Client client;
-    private final ConsoleHandlerService consoleHandlerService = new ConsoleHandlerService(this);
+    @Getter
+    private final TransportFactory transportFactory;
+    @Getter
+    private final MetricsRegistry metricsRegistry = new MetricsRegistry();
+    private ConsoleHandlerService consoleHandlerService;
     @Getter private NodeState nodeState;
     @Setter
     private TopologyService topologyService;
@@ -40,40 +51,59 @@ public class Node {
     }
 
     public Node(String[] args) {
-        this.nodeId = Integer.parseInt(args[0]);
+        this(Integer.parseInt(args[0]), new NettyTransportFactory());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.error("*** shutting down gRPC server since JVM is shutting down");
+            Node.this.stop();
+            log.error("*** server shut down");
+        }));
+    }
+
+    public Node(int nodeId, TransportFactory transportFactory) {
+        this.nodeId = nodeId;
+        this.transportFactory = transportFactory;
         this.isLeader = false;
         this.setUpNodeNetworkProperties(nodeId);
         this.topologyService = new TopologyService(this, client.getMyNeighbours());
         this.client.setTopologyService(topologyService);
         this.nodeState = NodeState.IDLE;
+        this.client.joinNetworkTopology();
     }
 
 
     private void startConsoleHandler() {
+        consoleHandlerService = new ConsoleHandlerService(this);
         consoleHandlerThread = new Thread(consoleHandlerService);
         consoleHandlerThread.start();
     }
 
+    public boolean isHeadless() {
+        return consoleHandlerService == null;
+    }
+
     public void startServer() throws IOException {
         int port = this.client.getMyAddress().port();
 
-        server = ServerBuilder.forPort(port)
-                .addService(new ServerImpl(this, topologyService))
+        serverImpl = new ServerImpl(this, topologyService);
+        server = transportFactory.buildServer(this.client.getMyAddress())
+                .addService(ServerInterceptors.intercept(serverImpl,
+                        new MetricsServerInterceptor(metricsRegistry)))
                 .build()
                 .start();
 
-        log.info("Server started on port: " + port);
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            log.error("*** shutting down gRPC server since JVM is shutting down");
-            Node.this.stopServer();
-            log.error("*** server shut down");
-        }));
+        log.info("Server started on port: " + port + " using " + Constants.THREAD_MODE + " threads");
+        client.getHeartbeatService().start();
+        if (Constants.MEMBERSHIP_MODE == MembershipMode.SWIM) {
+            client.getMembershipService().start();
+        }
     }
 
-    private void stopServer() {
+    public void stop() {
         if (server != null) {
             server.shutdown();
+            serverImpl.shutdown();
         }
+        client.closeConnections();
         if (consoleHandlerThread != null) {
             consoleHandlerThread.interrupt();
         }
@@ -85,12 +115,21 @@ public class Node {
         DSNeighbours myNeighbours = new DSNeighbours(myAddress);
 
         client = new Client(myAddress, myNeighbours, this);
-        client.joinNetworkTopology();
     }
 
     public void printStatus() {
         System.out.printf("Node id: %d%n", nodeId);
         System.out.println(client.getMyNeighbours().toString());
+        ElectionScheduler electionScheduler = client.getElectionScheduler();
+        System.out.printf("Elections (%s): round %d, triggered %d, coalesced %d, executed %d, last took %d ms, %d messages, %d bytes%n",
+                Constants.ELECTION_ALGORITHM, electionScheduler.getCurrentRound(), electionScheduler.getTriggeredElections(),
+                electionScheduler.getCoalescedTriggers(), electionScheduler.getExecutedElections(),
+                client.getLastElectionDurationMillis(), client.getLastElectionMessages(), client.getLastElectionBytes());
+        System.out.printf("Startup discovery took %d ms%n", client.getLastDiscoveryDurationMillis());
+        DSNeighbours myNeighbours = client.getMyNeighbours();
+        System.out.printf("Membership mode: %s%n", Constants.MEMBERSHIP_MODE);
+        System.out.printf("Leader term %d, lease holder %d, lease valid: %b%n", myNeighbours.getLeaderTerm(),
+                myNeighbours.getLeaseHolderId(), myNeighbours.isLeaseValid());
     }
 
     public void setNodeState(NodeState nodeState) {
@@ -0,0 +1,135 @@
+package com.dsva.client;
+
+import com.dsva.metrics.MetricsClientInterceptor;
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.TimeoutKind;
+import com.dsva.transport.TransportFactory;
+import com.dsva.util.ExecutorFactory;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ConnectivityState;
+import io.grpc.ManagedChannel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class ChannelRegistry {
+
+    private final ConcurrentHashMap<Address, PooledChannel> channels = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictionExecutor;
+    private final TransportFactory transportFactory;
+    private final MetricsClientInterceptor metricsInterceptor;
+    @Getter
+    private final RttTracker rttTracker = new RttTracker();
+
+    public ChannelRegistry(TransportFactory transportFactory, MetricsRegistry metricsRegistry) {
+        this.transportFactory = transportFactory;
+        this.metricsInterceptor = new MetricsClientInterceptor(metricsRegistry);
+        this.evictionExecutor = ExecutorFactory.newScheduledExecutor("channel-eviction");
+        this.evictionExecutor.scheduleAtFixedRate(this::evictIdleChannels,
+                Constants.CHANNEL_IDLE_TIMEOUT, Constants.CHANNEL_IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    public Channel getChannel(Address address) {
+        PooledChannel pooledChannel = channels.computeIfAbsent(address, this::createChannel);
+        pooledChannel.touch();
+        return pooledChannel.interceptedChannel;
+    }
+
+    /**
+     * Marks the pooled channel as used by a long-lived stream, which does not go through {@link #getChannel}.
+     * Returns false when the channel was already evicted.
+     */
+    public boolean touch(Address address) {
+        PooledChannel pooledChannel = channels.get(address);
+        if (pooledChannel == null) {
+            return false;
+        }
+        pooledChannel.touch();
+        return true;
+    }
+
+    public long getTimeout(Address address, TimeoutKind timeoutKind) {
+        return rttTracker.getTimeout(address.nodeId(), timeoutKind);
+    }
+
+    public ConnectivityState getChannelState(Address address) {
+        PooledChannel pooledChannel = channels.get(address);
+        return pooledChannel == null ? ConnectivityState.IDLE : pooledChannel.state;
+    }
+
+    public boolean isChannelHealthy(Address address) {
+        return getChannelState(address) != ConnectivityState.TRANSIENT_FAILURE;
+    }
+
+    public void evict(Address address) {
+        PooledChannel pooledChannel = channels.remove(address);
+        if (pooledChannel != null) {
+            log.debug("Evicting channel to node {}", address.nodeId());
+            pooledChannel.channel.shutdown();
+        }
+        rttTracker.forget(address.nodeId());
+    }
+
+    public void shutdown() {
+        evictionExecutor.shutdownNow();
+        channels.keySet().forEach(this::evict);
+    }
+
+    private PooledChannel createChannel(Address address) {
+        log.debug("Opening channel to node {} on {}:{}", address.nodeId(), address.hostname(), address.port());
+        ManagedChannel channel = transportFactory.buildChannel(address);
+        Channel interceptedChannel = ClientInterceptors.intercept(channel,
+                new RttRecordingInterceptor(rttTracker, address.nodeId()), metricsInterceptor);
+        PooledChannel pooledChannel = new PooledChannel(channel, interceptedChannel, address);
+        pooledChannel.watchState(ConnectivityState.IDLE);
+        return pooledChannel;
+    }
+
+    private void evictIdleChannels() {
+        long idleThreshold = System.currentTimeMillis() - Constants.CHANNEL_IDLE_TIMEOUT;
+        channels.forEach((address, pooledChannel) -> {
+            if (pooledChannel.lastUsed < idleThreshold) {
+                log.debug("Channel to node {} is idle for too long", address.nodeId());
+                evict(address);
+            }
+        });
+    }
+
+    private static final class PooledChannel {
+        private final ManagedChannel channel;
+        private final Channel interceptedChannel;
+        private final Address address;
+        private volatile ConnectivityState state = ConnectivityState.IDLE;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private PooledChannel(ManagedChannel channel, Channel interceptedChannel, Address address) {
+            this.channel = channel;
+            this.interceptedChannel = interceptedChannel;
+            this.address = address;
+        }
+
+        private void touch() {
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private void watchState(ConnectivityState source) {
+            channel.notifyWhenStateChanged(source, () -> {
+                ConnectivityState current = channel.getState(false);
+                if (current == ConnectivityState.TRANSIENT_FAILURE && state != ConnectivityState.TRANSIENT_FAILURE) {
+                    log.warn("Channel to node {} entered TRANSIENT_FAILURE", address.nodeId());
+                }
+                state = current;
+                if (current != ConnectivityState.SHUTDOWN) {
+                    watchState(current);
+                }
+            });
+        }
+    }
+}
@@ -2,24 +2,51 @@ package com.dsva.client;
 
 import com.dsva.Node;
 import com.dsva.exception.NodeNotFoundException;
+import com.dsva.metrics.MetricNames;
+import com.dsva.metrics.MetricsRegistry;
 import com.dsva.model.Address;
 import com.dsva.model.Constants;
 import com.dsva.model.DSNeighbours;
+import com.dsva.model.DeliveryStatus;
+import com.dsva.model.RoutingMode;
+import com.dsva.model.TimeoutKind;
 import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.dsva.service.BroadcastService;
+import com.dsva.service.DiscoveryService;
+import com.dsva.service.ElectionScheduler;
+import com.dsva.service.HeartbeatService;
 import com.dsva.service.LeaderElectionService;
+import com.dsva.service.MailboxService;
+import com.dsva.service.MessageReplayService;
 import com.dsva.service.MessageService;
 import com.dsva.service.ShutdownService;
+import com.dsva.service.SwimMembershipService;
 import com.dsva.service.TopologyService;
+import com.dsva.util.LogRateLimiter;
 import com.dsva.util.Utils;
+import com.dsva.wal.LoggedMessage;
+import com.dsva.wal.MessageLog;
+import com.dsva.wal.RecentMessageIds;
 import com.proto.chat_bully.AvailableNodesAddressesList;
-import com.proto.chat_bully.JoinRequest;
+import com.proto.chat_bully.ElectionRequest;
+import com.proto.chat_bully.ElectionResponse;
+import com.proto.chat_bully.GrantLeadershipRequest;
+import com.proto.chat_bully.GrantLeadershipResponse;
 import com.proto.chat_bully.JoinResponse;
+import com.proto.chat_bully.MessageRequest;
 import com.proto.chat_bully.NodeGrpc;
-import io.grpc.ManagedChannel;
+import com.proto.chat_bully.StatsResponse;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 
@@ -35,31 +62,71 @@ public class Client {
     private final MessageService messageService;
     private final LeaderElectionService leaderElectionService;
     private final ShutdownService shutdownService;
+    @Getter
+    private final ChannelRegistry channelRegistry;
+    @Getter
+    private final HeartbeatService heartbeatService;
+    @Getter
+    private final ElectionScheduler electionScheduler;
+    private final DiscoveryService discoveryService;
+    private final LeaderCache leaderCache;
+    @Getter
+    private long lastDiscoveryDurationMillis;
+    private final LogRateLimiter relayFailureLogLimiter = new LogRateLimiter(Constants.HOT_PATH_LOGS_PER_SECOND);
+    @Getter
+    private final MessageLog messageLog;
+    @Getter
+    private final RecentMessageIds deliveredMessageIds = new RecentMessageIds(Constants.DELIVERED_MESSAGE_IDS_CAPACITY);
+    private final MessageReplayService messageReplayService;
+    @Getter
+    private final MailboxService mailboxService;
+    @Getter
+    private final BroadcastService broadcastService;
+    @Getter
+    private final SwimMembershipService membershipService;
 
     public Client(Address myAddress, DSNeighbours myNeighbours, Node myNode) {
         this.myAddress = myAddress;
         this.myNeighbours = myNeighbours;
         this.myNode = myNode;
-        this.messageService = new MessageService(this.myNeighbours);
-        this.leaderElectionService = new LeaderElectionService(this.myNeighbours, this.myNode);
-        this.shutdownService = new ShutdownService(this);
+        this.channelRegistry = new ChannelRegistry(myNode.getTransportFactory(), myNode.getMetricsRegistry());
+        this.myNeighbours.addNodeRemovalListener(channelRegistry::evict);
+        this.messageService = new MessageService(this.myNeighbours, this.channelRegistry);
+        this.leaderElectionService = new LeaderElectionService(this.myNeighbours, this.myNode, this.channelRegistry);
+        this.shutdownService = new ShutdownService(this, this.myNode);
+        this.heartbeatService = new HeartbeatService(this.myNode, this.myNeighbours, this.channelRegistry);
+        this.electionScheduler = new ElectionScheduler(this.leaderElectionService);
+        this.discoveryService = new DiscoveryService(this.myAddress, this.channelRegistry);
+        this.leaderCache = new LeaderCache(myAddress.nodeId());
+        this.messageLog = openMessageLog(myAddress.nodeId(), myNode.getMetricsRegistry());
+        this.messageReplayService = new MessageReplayService(this.myNode, this.myNeighbours, this.channelRegistry, this.messageLog);
+        this.mailboxService = new MailboxService(myNode.getMetricsRegistry(), this::relay,
+                messageReplayService::acknowledgeDelivery);
+        this.broadcastService = new BroadcastService(this.myNode, this.myNeighbours, this.channelRegistry);
+        this.membershipService = new SwimMembershipService(this.myNode, this.myNeighbours, this.channelRegistry);
+        registerGauges(myNode.getMetricsRegistry());
     }
 
     public void sendMessage(int receiverNodeId, String message) throws NodeNotFoundException {
         boolean viaLeader = !this.myNode.isLeader();
-        boolean messageSent = false;
+        DeliveryStatus status = DeliveryStatus.FAILED;
         int retryCount = 0;
+        MessageRequest request = acceptOutgoingMessage(receiverNodeId, message);
 
-        while (!messageSent && retryCount < Constants.MAX_RETRIES) {
-            messageSent = messageService.sendGrpcMessage(receiverNodeId, myNode.getNodeId(), message, viaLeader);
-            if (!messageSent) {
-                log.warn("Retrying message send. Attempt: {}", retryCount + 1);
-                Utils.sleep();
+        while (!status.isSuccessful() && retryCount < Constants.MAX_RETRIES) {
+            status = viaLeader ? sendFromFollower(request) : awaitStatus(distributeMessage(request));
+            if (!status.isSuccessful()) {
+                long backoff = channelRegistry.getTimeout(messageService.getTargetNodeAddress(receiverNodeId, viaLeader),
+                        TimeoutKind.RELAY);
+                log.warn("Retrying message send in {} ms. Attempt: {}", backoff, retryCount + 1);
+                Utils.sleep(backoff);
             }
             retryCount++;
         }
 
-        if (!messageSent) {
+        if (status.isSuccessful()) {
+            markDeliveredIfDelivered(request, status);
+        } else {
             Address leaderAddress = myNeighbours.getLeaderAddress();
             log.error("Failed to send message after {} attempts", Constants.MAX_RETRIES);
             int nodeIdToCheck = leaderAddress.nodeId();
@@ -77,57 +144,159 @@ public class Client {
         }
     }
 
-    public void distributeMessage(int receiverNodeId, int senderNodeId, String message) throws NodeNotFoundException {
-        log.info("As a leader I distribute a message from {} to {}", senderNodeId, receiverNodeId);
-        if (!messageService.sendGrpcMessage(receiverNodeId, senderNodeId, message, false)) {
-            topologyService.checkNodeHealthAndHandleFailure(receiverNodeId);
+    public CompletableFuture<Boolean> sendMessageAsync(int receiverNodeId, String message) throws NodeNotFoundException {
+        MessageRequest request = acceptOutgoingMessage(receiverNodeId, message);
+        CompletableFuture<DeliveryStatus> messageAck;
+        if (myNode.isLeader()) {
+            messageAck = distributeMessage(request);
+        } else if (canDeliverDirectly(receiverNodeId)) {
+            messageAck = sendDirect(request).thenCompose(status -> status.isSuccessful()
+                    ? CompletableFuture.completedFuture(status) : fallBackToLeader(request));
+        } else {
+            messageAck = sendViaLeader(request);
+        }
+        return messageAck.thenApply(status -> markDeliveredIfDelivered(request, status).isSuccessful());
+    }
+
+    /**
+     * Relays a message as the leader. Messages to a receiver that is known to be unreachable, or whose relay fails,
+     * are held in its mailbox and acknowledged as accepted.
+     */
+    public CompletableFuture<DeliveryStatus> distributeMessage(MessageRequest request) {
+        int receiverNodeId = request.getReceiverId();
+        log.debug("As a leader I distribute a message from {} to {}", request.getSenderId(), receiverNodeId);
+        if (!myNeighbours.isLeaseHeldBy(myNode.getNodeId())) {
+            log.warn("Not relaying message {}: my leader lease for term {} is not valid", request.getMessageId(),
+                    myNeighbours.getLeaderTerm());
+            myNode.getMetricsRegistry().increment(MetricNames.LEASE_REJECTED_RELAYS);
+            return CompletableFuture.completedFuture(DeliveryStatus.FAILED);
+        }
+        if (request.getMessageId() != 0) {
+            appendToMessageLog(new LoggedMessage(request.getMessageId(), request.getSenderId(), receiverNodeId,
+                    request.getAcceptedAt(), request.getMessage()));
+        }
+        if (!myNeighbours.isNodePresent(receiverNodeId)) {
+            return CompletableFuture.completedFuture(mailboxService.hasPendingMessages(receiverNodeId)
+                    ? mailboxService.hold(request) : DeliveryStatus.FAILED);
+        }
+        if (isKnownUnreachable(receiverNodeId) || mailboxService.shouldHold(receiverNodeId)) {
+            return CompletableFuture.completedFuture(mailboxService.hold(request));
         }
+        return relay(request).thenApply(status -> status.isSuccessful() ? status : mailboxService.hold(request));
+    }
+
+    public CompletableFuture<Integer> broadcast(String message) {
+        return broadcastService.broadcast(message);
+    }
+
+    public CompletableFuture<Integer> replayUndeliveredMessages() {
+        return messageReplayService.replayUndeliveredMessages();
     }
 
     public void joinNetworkTopology() {
         log.info("Trying to connect to someone in topology...");
-        for (int nodeId = Constants.EXPECTED_ENTRY_POINT_NODE_ID; nodeId > 0; nodeId--) {
-            if (nodeId == myNode.getNodeId()) {
-                continue;
-            }
+        long discoveryStart = System.nanoTime();
+        List<Address> candidates = new ArrayList<>();
+        leaderCache.load().ifPresent(candidates::add);
+        candidates.addAll(DiscoveryService.buildSeedAddresses(Constants.SEED_NODES));
 
-            if (joinNetworkTopology(nodeId)) {
-                log.info("Your node: {} joined network topology successfully. Topology:\n {}", myNode.getNodeId(), myNeighbours.toString());
-                if (nodeId < myNode.getNodeId()) {
-                    log.info("However my ID is higher, so I will initiate a leader election process.");
-                    initiateElection();
-                }
-                return;
-            }
+        Optional<JoinResponse> response = discoveryService.discover(candidates);
+        lastDiscoveryDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - discoveryStart);
+
+        if (response.isEmpty()) {
+            log.info("No node responded within {} ms. Become a leader.", lastDiscoveryDurationMillis);
+            leaderElectionService.becomeLeader();
+            return;
+        }
+
+        JoinResponse joinResponse = response.get();
+        setUpDSNeighbours(joinResponse.getLeader(), joinResponse.getAvailableNodesAddressesList(), joinResponse.getEpoch(),
+                joinResponse.getTerm());
+        myNeighbours.renewLease(joinResponse.getLeader().getNodeId(), joinResponse.getTerm());
+        leaderCache.store(myNeighbours.getLeaderAddress());
+        log.info("Your node: {} joined network topology in {} ms", myNode.getNodeId(), lastDiscoveryDurationMillis);
+        log.debug("Topology:\n {}", myNeighbours);
+        if (joinResponse.getLeader().getNodeId() < myNode.getNodeId()) {
+            log.info("However my ID is higher, so I will initiate a leader election process.");
+            initiateElection();
         }
-        log.info("I tried to connect to all possible nodes. No one responded. Become a leader.");
-        leaderElectionService.becomeLeader();
     }
 
-    public void sendCurrentTopology(int joiningNodeId) {
+    public void onLeaderAnnounced(int leaderId) {
+        if (myNode.isLeader() && leaderId != myNode.getNodeId()) {
+            log.info("Node {} took over the leadership. Stepping down.", leaderId);
+            myNode.setLeader(false);
+        }
+        leaderElectionService.onLeaderAnnounced(leaderId);
+        if (leaderId != myNode.getNodeId() && myNeighbours.isNodePresent(leaderId)) {
+            leaderCache.store(myNeighbours.getKnownNodes().get(leaderId));
+        }
+    }
+
+    public void stepDown(long newerTerm) {
         if (!myNode.isLeader()) {
             return;
         }
+        log.warn("Term {} is newer than my leader term, stepping down", newerTerm);
+        myNode.setLeader(false);
+        myNeighbours.observeTerm(newerTerm);
+        myNode.getMetricsRegistry().increment(MetricNames.LEASE_STEP_DOWNS);
+        initiateElection();
+    }
 
-        for (Address address : myNeighbours.getKnownNodes().values()) {
-            if (address.nodeId() != joiningNodeId) {
-                try {
-                    topologyService.updateNodeTopology(address);
-                } catch (NodeNotFoundException e) {
-                    log.error("Node not found: {}", e.getMessage());
-                }
-            }
+    public ElectionResponse handleElectionRequest(ElectionRequest request) {
+        return leaderElectionService.handleElectionRequest(request);
+    }
+
+    public GrantLeadershipResponse acceptLeadershipGrant(GrantLeadershipRequest request) {
+        electionScheduler.observeRound(request.getRound());
+        if (leaderElectionService.isLeaderLeaseProtected()) {
+            log.info("Node {} holds a valid lease, declining the leadership granted by node {}",
+                    myNeighbours.getLeaseHolderId(), request.getInitiatorId());
+            return ResponseBuilder.buildGrantLeadershipResponse(false);
         }
+        log.info("Node {} granted me the leadership in round {}", request.getInitiatorId(), request.getRound());
+        myNode.getMetricsRegistry().increment(MetricNames.ELECTION_GRANTS);
+        leaderElectionService.onLeadershipGranted();
+        electionScheduler.execute(leaderElectionService::becomeLeader);
+        return ResponseBuilder.buildGrantLeadershipResponse(true);
+    }
+
+    public boolean isLeaderLeaseProtected() {
+        return leaderElectionService.isLeaderLeaseProtected();
+    }
+
+    public long getLastElectionDurationMillis() {
+        return leaderElectionService.getLastElectionDurationMillis();
+    }
+
+    public long getLastElectionMessages() {
+        return leaderElectionService.getLastElectionMessages();
     }
 
-    public void initiateElection() {
-        leaderElectionService.initiateElection();
+    public long getLastElectionBytes() {
+        return leaderElectionService.getLastElectionBytes();
+    }
+
+    public CompletableFuture<Long> initiateElection() {
+        return electionScheduler.requestElection();
     }
 
     public void quitTopologyWithNotification(int senderNodeId) {
         shutdownService.quitTopologyWithNotification(senderNodeId);
     }
 
+    public void closeConnections() {
+        heartbeatService.stop();
+        membershipService.stop();
+        electionScheduler.shutdown();
+        topologyService.shutdown();
+        messageService.closeMessageStreams();
+        channelRegistry.shutdown();
+        mailboxService.stop();
+        messageLog.close();
+    }
+
     public void quitTopologyWithoutNotification() {
         shutdownService.quitTopologyWithoutNotification();
     }
@@ -138,50 +307,182 @@ public class Client {
 
     public void setTopologyService(TopologyService topologyService) {
         this.topologyService = topologyService;
-        this.topologyService.setLeaderElectionService(leaderElectionService);
+        this.leaderElectionService.setTopologyService(topologyService);
+        this.topologyService.setHeartbeatService(heartbeatService);
+        this.heartbeatService.setTopologyService(topologyService);
     }
 
-    private boolean joinNetworkTopology(int expectedNodeIdToBeAlive) {
-        int targetNodePort = Utils.getNodePortFromNodeId(expectedNodeIdToBeAlive);
-        String expectedHostname = Constants.HOSTNAME;
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodePort, expectedHostname);
-        NodeGrpc.NodeBlockingStub stub = NodeGrpc.newBlockingStub(channel)
-                .withDeadlineAfter(Constants.MAX_ACCEPTABLE_DELAY, TimeUnit.MILLISECONDS);
+    public StatsResponse fetchStats(int nodeId) throws NodeNotFoundException {
+        Address targetAddress = myNeighbours.getTargetNodeAddress(nodeId);
+        return NodeGrpc.newBlockingStub(channelRegistry.getChannel(targetAddress))
+                .withDeadlineAfter(channelRegistry.getTimeout(targetAddress, TimeoutKind.TOPOLOGY), TimeUnit.MILLISECONDS)
+                .getStats(RequestBuilder.buildStatsRequest(myNode.getNodeId()));
+    }
 
-        JoinRequest request = RequestBuilder.buildJoinRequest(this.myAddress.port(), myNode.getNodeId(), Constants.HOSTNAME);
+    private MessageRequest acceptOutgoingMessage(int receiverNodeId, String message) {
+        LoggedMessage loggedMessage = new LoggedMessage(messageLog.nextMessageId(), myNode.getNodeId(), receiverNodeId,
+                System.currentTimeMillis(), message);
+        appendToMessageLog(loggedMessage);
+        return RequestBuilder.buildMessageRequest(loggedMessage);
+    }
 
-        JoinResponse response;
+    private void appendToMessageLog(LoggedMessage loggedMessage) {
+        messageLog.appendAccepted(loggedMessage).exceptionally(e -> {
+            log.error("Cannot log message {}: {}", loggedMessage.messageId(), e.toString());
+            return null;
+        });
+    }
 
+    private CompletableFuture<DeliveryStatus> relay(MessageRequest request) {
+        int receiverNodeId = request.getReceiverId();
+        long timeout = channelRegistry.getRttTracker().getTimeout(receiverNodeId, TimeoutKind.RELAY);
+        long relayStart = System.nanoTime();
+        MetricsRegistry metricsRegistry = myNode.getMetricsRegistry();
+        MessageRequest leaderRequest = request.toBuilder()
+                .setRelayerId(myNode.getNodeId())
+                .setLeaderTerm(myNeighbours.getLeaderTerm())
+                .build();
+        CompletableFuture<DeliveryStatus> relayAck;
         try {
-            response = stub.join(request);
-            if (response.getAck()) {
+            relayAck = messageService.sendGrpcMessageAsync(leaderRequest, false);
+        } catch (NodeNotFoundException e) {
+            relayAck = CompletableFuture.completedFuture(DeliveryStatus.FAILED);
+        }
+        return relayAck
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    if (relayFailureLogLimiter.tryAcquire()) {
+                        log.error("Relay from {} to {} failed: {} ({} failures not logged)", request.getSenderId(),
+                                receiverNodeId, e.toString(), relayFailureLogLimiter.drainSuppressed());
+                    }
+                    return DeliveryStatus.FAILED;
+                })
+                .thenApply(status -> {
+                    metricsRegistry.record(MetricNames.RELAY_LATENCY, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - relayStart));
+                    if (status.isSuccessful()) {
+                        metricsRegistry.increment(MetricNames.RELAYED_MESSAGES);
+                    } else {
+                        metricsRegistry.increment(MetricNames.RELAY_FAILURES);
+                        topologyService.scheduleHealthCheck(receiverNodeId);
+                    }
+                    return markDeliveredIfDelivered(request, status);
+                });
+    }
 
-                setUpDSNeighbours(response.getLeader(), response.getAvailableNodesAddressesList());
-                return true;
-            } else {
-                log.info("Node {} responded with false ack", targetNodePort);
-                return false;
+    private DeliveryStatus sendFromFollower(MessageRequest request) throws NodeNotFoundException {
+        if (canDeliverDirectly(request.getReceiverId())) {
+            DeliveryStatus status = awaitStatus(sendDirect(request));
+            if (status.isSuccessful()) {
+                return status;
             }
-        } catch (Exception e) {
-            log.debug("Cannot connect to node {}: {}", expectedNodeIdToBeAlive, e.getMessage());
-            return false;
-        } finally {
-            channel.shutdown();
-            Utils.awaitChannelTermination(channel);
+            myNode.getMetricsRegistry().increment(MetricNames.ROUTING_FALLBACKS);
         }
+        myNode.getMetricsRegistry().increment(MetricNames.ROUTING_VIA_LEADER);
+        return messageService.sendGrpcMessage(request, true);
     }
 
-    private void setUpDSNeighbours(com.proto.chat_bully.Address leader, AvailableNodesAddressesList availableNodesAddressesList) {
-        log.info("Setting up new neighbours. New leader node ID: {}", leader.getNodeId());
-        myNeighbours.setLeaderAddress(Utils.convertProtoModelToModelAddress(leader));
+    /**
+     * In direct routing mode a follower sends to any receiver it knows and has no reason to consider unreachable;
+     * everything else goes through the leader, which can hold the message in a mailbox.
+     */
+    private boolean canDeliverDirectly(int receiverNodeId) {
+        return Constants.ROUTING_MODE == RoutingMode.DIRECT
+                && receiverNodeId != myNode.getNodeId()
+                && myNeighbours.isNodePresent(receiverNodeId)
+                && !isKnownUnreachable(receiverNodeId);
+    }
+
+    private CompletableFuture<DeliveryStatus> sendDirect(MessageRequest request) {
+        int receiverNodeId = request.getReceiverId();
+        long timeout = channelRegistry.getRttTracker().getTimeout(receiverNodeId, TimeoutKind.RELAY);
+        CompletableFuture<DeliveryStatus> directAck;
+        try {
+            directAck = messageService.sendGrpcMessageAsync(request, false);
+        } catch (NodeNotFoundException e) {
+            directAck = CompletableFuture.completedFuture(DeliveryStatus.FAILED);
+        }
+        return directAck
+                .orTimeout(timeout, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.debug("Direct delivery to {} failed: {}", receiverNodeId, e.toString());
+                    return DeliveryStatus.FAILED;
+                })
+                .thenApply(status -> {
+                    if (status.isSuccessful()) {
+                        myNode.getMetricsRegistry().increment(MetricNames.ROUTING_DIRECT);
+                    }
+                    return status;
+                });
+    }
 
-        ConcurrentHashMap<Integer, Address> knownNodes = new ConcurrentHashMap<>();
-        for (com.proto.chat_bully.Address protoAddress : availableNodesAddressesList.getAddressesList()) {
-            Address address = Utils.convertProtoModelToModelAddress(protoAddress);
-            knownNodes.put(address.nodeId(), address);
+    private CompletableFuture<DeliveryStatus> fallBackToLeader(MessageRequest request) {
+        myNode.getMetricsRegistry().increment(MetricNames.ROUTING_FALLBACKS);
+        try {
+            return sendViaLeader(request);
+        } catch (NodeNotFoundException e) {
+            log.error(e.getMessage());
+            return CompletableFuture.completedFuture(DeliveryStatus.FAILED);
         }
+    }
+
+    private CompletableFuture<DeliveryStatus> sendViaLeader(MessageRequest request) throws NodeNotFoundException {
+        myNode.getMetricsRegistry().increment(MetricNames.ROUTING_VIA_LEADER);
+        return messageService.sendGrpcMessageAsync(request, true);
+    }
+
+    private DeliveryStatus awaitStatus(CompletableFuture<DeliveryStatus> delivery) {
+        try {
+            return delivery.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return DeliveryStatus.FAILED;
+        } catch (ExecutionException e) {
+            log.error("Error distributing message: {}", e.toString());
+            return DeliveryStatus.FAILED;
+        }
+    }
+
+    private boolean isKnownUnreachable(int nodeId) {
+        Address address = myNeighbours.getKnownNodes().get(nodeId);
+        return heartbeatService.isSuspected(nodeId)
+                || membershipService.isSuspected(nodeId)
+                || (address != null && !channelRegistry.isChannelHealthy(address));
+    }
+
+    private DeliveryStatus markDeliveredIfDelivered(MessageRequest request, DeliveryStatus status) {
+        if (status == DeliveryStatus.DELIVERED) {
+            messageLog.markDelivered(request.getMessageId());
+        }
+        return status;
+    }
+
+    private static MessageLog openMessageLog(int nodeId, MetricsRegistry metricsRegistry) {
+        MessageLog messageLog = new MessageLog(nodeId, metricsRegistry);
+        try {
+            messageLog.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the message log of node " + nodeId, e);
+        }
+        return messageLog;
+    }
+
+    private void registerGauges(MetricsRegistry metricsRegistry) {
+        metricsRegistry.gauge(MetricNames.RELAY_PENDING_MESSAGES, messageService::getPendingMessagesCount);
+        metricsRegistry.gauge(MetricNames.TOPOLOGY_EPOCH, myNeighbours::getTopologyEpoch);
+        metricsRegistry.gauge(MetricNames.LEADER_TERM, myNeighbours::getLeaderTerm);
+        metricsRegistry.gauge(MetricNames.KNOWN_NODES, () -> myNeighbours.getKnownNodes().size());
+    }
+
+    private void setUpDSNeighbours(com.proto.chat_bully.Address leader, AvailableNodesAddressesList availableNodesAddressesList, long epoch,
+                                   long term) {
+        log.info("Setting up new neighbours. New leader node ID: {}", leader.getNodeId());
+        myNeighbours.setLeaderAddress(Utils.convertProtoModelToModelAddress(leader));
 
-        log.info("Updated neighbours: {}", knownNodes);
-        myNeighbours.setKnownNodes(knownNodes);
+        List<Address> addresses = availableNodesAddressesList.getAddressesList().stream()
+                .map(Utils::convertProtoModelToModelAddress)
+                .toList();
+        myNeighbours.applySnapshot(epoch, leader.getNodeId(), term, addresses);
+        log.info("Updated neighbours at topology epoch {} ({} nodes)", epoch, addresses.size());
+        log.debug("Neighbours: {}", myNeighbours.getKnownNodes());
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.dsva.client;
+
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+@Slf4j
+public class LeaderCache {
+    private static final String SEPARATOR = ":";
+
+    private final Path cacheFile;
+
+    public LeaderCache(int nodeId) {
+        this.cacheFile = Path.of(Constants.LEADER_CACHE_DIRECTORY, "dsva-node-" + nodeId + ".leader");
+    }
+
+    public Optional<Address> load() {
+        if (!Files.isRegularFile(cacheFile)) {
+            return Optional.empty();
+        }
+        try {
+            String[] parts = Files.readString(cacheFile, StandardCharsets.UTF_8).trim().split(SEPARATOR);
+            return Optional.of(new Address(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable leader cache {}: {}", cacheFile, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    public void store(Address leaderAddress) {
+        String content = leaderAddress.hostname() + SEPARATOR + leaderAddress.port() + SEPARATOR + leaderAddress.nodeId();
+        try {
+            Files.writeString(cacheFile, content, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("Cannot store last known leader to {}: {}", cacheFile, e.toString());
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.dsva.client;
+
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.DeliveryStatus;
+import com.proto.chat_bully.MessageRequest;
+import com.proto.chat_bully.MessageStreamAck;
+import com.proto.chat_bully.NodeGrpc;
+import io.grpc.Channel;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived stream of messages to one peer. A message that is not acknowledged within its timeout is dropped from
+ * the pending set; after several timeouts in a row the stream is considered half-open and is cancelled, so the next
+ * send opens a new one. Messages are only written while the transport is ready; the rest wait in a bounded queue
+ * that is drained from the on-ready callback.
+ */
+@Slf4j
+public class MessageStream implements ClientResponseObserver<MessageRequest, MessageStreamAck> {
+
+    @Getter
+    private final Address targetAddress;
+    private final RttTracker rttTracker;
+    private final Consumer<MessageStream> onClosed;
+    private final ConcurrentHashMap<Long, CompletableFuture<DeliveryStatus>> pendingMessages = new ConcurrentHashMap<>();
+    private final AtomicLong sequenceGenerator = new AtomicLong();
+    private final AtomicInteger consecutiveAckTimeouts = new AtomicInteger();
+    private final AtomicBoolean terminated = new AtomicBoolean();
+    private final Queue<MessageRequest> queuedMessages = new ArrayDeque<>();
+    private final Object sendLock = new Object();
+    private ClientCallStreamObserver<MessageRequest> requestObserver;
+    private volatile boolean closed;
+
+    public MessageStream(Channel channel, Address targetAddress, RttTracker rttTracker, Consumer<MessageStream> onClosed) {
+        this.targetAddress = targetAddress;
+        this.rttTracker = rttTracker;
+        this.onClosed = onClosed;
+        NodeGrpc.newStub(channel).messageStream(this);
+    }
+
+    @Override
+    public void beforeStart(ClientCallStreamObserver<MessageRequest> requestStream) {
+        synchronized (sendLock) {
+            requestObserver = requestStream;
+            requestStream.setOnReadyHandler(this::drainQueuedMessages);
+        }
+    }
+
+    public CompletableFuture<DeliveryStatus> send(MessageRequest request, long timeoutMillis) {
+        long sequence = sequenceGenerator.incrementAndGet();
+        CompletableFuture<DeliveryStatus> result = new CompletableFuture<>();
+        pendingMessages.put(sequence, result);
+        result.whenComplete((status, e) -> {
+            pendingMessages.remove(sequence, result);
+            if (e instanceof TimeoutException) {
+                onAckTimeout();
+            }
+        });
+
+        synchronized (sendLock) {
+            if (closed || queuedMessages.size() >= Constants.STREAM_MAX_QUEUED_MESSAGES) {
+                pendingMessages.remove(sequence);
+                result.complete(DeliveryStatus.FAILED);
+                return result;
+            }
+            MessageRequest sequencedRequest = request.toBuilder().setSequence(sequence).build();
+            if (queuedMessages.isEmpty() && requestObserver.isReady()) {
+                requestObserver.onNext(sequencedRequest);
+            } else {
+                queuedMessages.add(sequencedRequest);
+            }
+        }
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getPendingMessagesCount() {
+        return pendingMessages.size();
+    }
+
+    public void close() {
+        synchronized (sendLock) {
+            if (!closed) {
+                closed = true;
+                queuedMessages.clear();
+                requestObserver.onCompleted();
+            }
+        }
+    }
+
+    @Override
+    public void onNext(MessageStreamAck messageStreamAck) {
+        consecutiveAckTimeouts.set(0);
+        messageStreamAck.getAckedSequencesList().forEach(sequence -> completePending(sequence, DeliveryStatus.DELIVERED));
+        messageStreamAck.getAcceptedSequencesList().forEach(sequence -> completePending(sequence, DeliveryStatus.ACCEPTED));
+        messageStreamAck.getFailedSequencesList().forEach(sequence -> completePending(sequence, DeliveryStatus.FAILED));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.error("Message stream to node {} failed: {}", targetAddress.nodeId(), t.toString());
+        terminate();
+    }
+
+    @Override
+    public void onCompleted() {
+        log.debug("Message stream to node {} was completed by peer", targetAddress.nodeId());
+        terminate();
+    }
+
+    private void drainQueuedMessages() {
+        synchronized (sendLock) {
+            while (!closed && !queuedMessages.isEmpty() && requestObserver.isReady()) {
+                MessageRequest request = queuedMessages.poll();
+                // A message whose acknowledgment already timed out was reported as lost and is not sent any more.
+                if (pendingMessages.containsKey(request.getSequence())) {
+                    requestObserver.onNext(request);
+                }
+            }
+        }
+    }
+
+    private void completePending(long sequence, DeliveryStatus status) {
+        CompletableFuture<DeliveryStatus> result = pendingMessages.remove(sequence);
+        if (result != null) {
+            result.complete(status);
+        }
+    }
+
+    private void onAckTimeout() {
+        rttTracker.recordTimeout(targetAddress.nodeId());
+        if (consecutiveAckTimeouts.incrementAndGet() < Constants.STREAM_MAX_ACK_TIMEOUTS) {
+            return;
+        }
+        log.warn("{} messages in a row to node {} were not acknowledged in time, reopening the stream",
+                Constants.STREAM_MAX_ACK_TIMEOUTS, targetAddress.nodeId());
+        synchronized (sendLock) {
+            if (!closed) {
+                closed = true;
+                queuedMessages.clear();
+                requestObserver.onError(Status.CANCELLED.withDescription("Acknowledgments timed out").asRuntimeException());
+            }
+        }
+        terminate();
+    }
+
+    private void terminate() {
+        if (!terminated.compareAndSet(false, true)) {
+            return;
+        }
+        closed = true;
+        pendingMessages.keySet().forEach(sequence -> completePending(sequence, DeliveryStatus.FAILED));
+        onClosed.accept(this);
+    }
+}
@@ -0,0 +1,55 @@
+package com.dsva.client;
+
+import com.proto.chat_bully.NodeGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class RttRecordingInterceptor implements ClientInterceptor {
+    private static final Set<Status.Code> UNANSWERED_CODES = Set.of(Status.Code.DEADLINE_EXCEEDED,
+            Status.Code.UNAVAILABLE, Status.Code.CANCELLED);
+    // A Broadcast only completes after the whole subtree of the child answered and a PingReq only after the helper's
+    // own ping of the target, so neither measures the RTT of the called node.
+    private static final Set<String> UNSAMPLED_METHODS = Set.of(NodeGrpc.getBroadcastMethod().getFullMethodName(),
+            NodeGrpc.getPingReqMethod().getFullMethodName());
+
+    private final RttTracker rttTracker;
+    private final int nodeId;
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+        if (method.getType() != MethodDescriptor.MethodType.UNARY || UNSAMPLED_METHODS.contains(method.getFullMethodName())) {
+            return call;
+        }
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long startNanos = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        if (status.getCode() == Status.Code.DEADLINE_EXCEEDED) {
+                            rttTracker.recordTimeout(nodeId);
+                        } else if (!UNANSWERED_CODES.contains(status.getCode())) {
+                            rttTracker.recordSample(nodeId, System.nanoTime() - startNanos);
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.dsva.client;
+
+import com.dsva.model.Constants;
+import com.dsva.model.RttEstimator;
+import com.dsva.model.TimeoutKind;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RttTracker {
+
+    private final ConcurrentHashMap<Integer, RttEstimator> estimators = new ConcurrentHashMap<>();
+
+    public void recordSample(int nodeId, long rttNanos) {
+        estimators.computeIfAbsent(nodeId, id -> new RttEstimator()).recordSample(rttNanos);
+    }
+
+    public void recordTimeout(int nodeId) {
+        estimators.computeIfAbsent(nodeId, id -> new RttEstimator()).recordTimeout();
+    }
+
+    public void forget(int nodeId) {
+        estimators.remove(nodeId);
+    }
+
+    public long getTimeout(int nodeId, TimeoutKind timeoutKind) {
+        // The floor applies to the RTO itself, so calls that span several hops keep their multiple of it.
+        double timeout = Math.max(Constants.RTT_MIN_TIMEOUT, getRetransmissionTimeout(nodeId)) * timeoutKind.getRttMultiplier();
+        return Math.min(Constants.RTT_MAX_TIMEOUT, (long) Math.ceil(timeout));
+    }
+
+    public long getTimeout(Collection<Integer> nodeIds, TimeoutKind timeoutKind) {
+        long timeout = Constants.RTT_MIN_TIMEOUT;
+        for (Integer nodeId : nodeIds) {
+            timeout = Math.max(timeout, getTimeout(nodeId, timeoutKind));
+        }
+        return timeout;
+    }
+
+    public double getSmoothedRtt(int nodeId) {
+        RttEstimator estimator = estimators.get(nodeId);
+        return estimator == null ? 0 : estimator.getSmoothedRttMillis();
+    }
+
+    private double getRetransmissionTimeout(int nodeId) {
+        RttEstimator estimator = estimators.get(nodeId);
+        if (estimator == null) {
+            return getDefaultRetransmissionTimeout();
+        }
+        double timeout = estimator.isSampled() ? estimator.getRetransmissionTimeoutMillis() : getDefaultRetransmissionTimeout();
+        return timeout * estimator.getBackoffMultiplier();
+    }
+
+    private double getDefaultRetransmissionTimeout() {
+        // Peers we never talked to are assumed to be as slow as the slowest peer we know.
+        return estimators.values().stream()
+                .filter(RttEstimator::isSampled)
+                .mapToDouble(RttEstimator::getRetransmissionTimeoutMillis)
+                .max()
+                .orElse(Constants.RTT_INITIAL_TIMEOUT);
+    }
+}
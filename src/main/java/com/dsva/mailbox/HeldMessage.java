@@ -0,0 +1,6 @@
+package com.dsva.mailbox;
+
+import com.proto.chat_bully.MessageRequest;
+
+public record HeldMessage(MessageRequest request, long heldAt) {
+}
@@ -0,0 +1,103 @@
+package com.dsva.mailbox;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages held for one receiver. The oldest messages live in a bounded on-heap ring, newer ones spill into an
+ * off-heap overflow queue and are promoted as the ring drains. When the overflow is full the oldest message is evicted.
+ * Messages of a batch being drained keep their ring slots until the batch completes, so a failed drain can put them
+ * back without exceeding the ring capacity.
+ */
+public class Mailbox {
+    private final int ringCapacity;
+    private final ArrayDeque<HeldMessage> ring;
+    private final OffHeapMessageQueue overflow;
+    private int inFlight;
+
+    public Mailbox(int ringCapacity, long overflowBytes) {
+        this.ringCapacity = ringCapacity;
+        this.ring = new ArrayDeque<>(ringCapacity);
+        this.overflow = new OffHeapMessageQueue(overflowBytes);
+    }
+
+    /**
+     * Returns the number of older messages evicted to make room, or -1 when the message can not be held at all.
+     */
+    public synchronized int offer(HeldMessage message) {
+        if (overflow.isEmpty() && hasRingRoom()) {
+            ring.addLast(message);
+            return 0;
+        }
+        int evicted = 0;
+        while (!overflow.offer(message)) {
+            if (!evictOldest()) {
+                return -1;
+            }
+            evicted++;
+        }
+        return evicted;
+    }
+
+    public synchronized int evictOlderThan(long threshold) {
+        int evicted = 0;
+        while (getOldestHeldAt() < threshold) {
+            evictOldest();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    public synchronized List<HeldMessage> pollBatch(int maxMessages) {
+        List<HeldMessage> batch = new ArrayList<>(Math.min(maxMessages, size()));
+        while (batch.size() < maxMessages && !ring.isEmpty()) {
+            batch.add(ring.pollFirst());
+        }
+        inFlight += batch.size();
+        return batch;
+    }
+
+    /**
+     * Completes a batch returned by {@link #pollBatch}: undelivered messages go back to the front of the ring and the
+     * slots of the delivered ones are refilled from the overflow.
+     */
+    public synchronized void completeBatch(int batchSize, List<HeldMessage> undelivered) {
+        inFlight -= batchSize;
+        for (int i = undelivered.size() - 1; i >= 0; i--) {
+            ring.addFirst(undelivered.get(i));
+        }
+        promote();
+    }
+
+    public synchronized int size() {
+        return ring.size() + overflow.size();
+    }
+
+    public synchronized long getOverflowBytes() {
+        return overflow.getUsedBytes();
+    }
+
+    private long getOldestHeldAt() {
+        HeldMessage oldest = ring.peekFirst();
+        return oldest != null ? oldest.heldAt() : overflow.peekHeldAt();
+    }
+
+    private boolean evictOldest() {
+        if (ring.pollFirst() != null) {
+            promote();
+            return true;
+        }
+        return overflow.poll() != null;
+    }
+
+    private boolean hasRingRoom() {
+        return ring.size() + inFlight < ringCapacity;
+    }
+
+    private void promote() {
+        while (hasRingRoom() && !overflow.isEmpty()) {
+            ring.addLast(overflow.poll());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.dsva.mailbox;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.proto.chat_bully.MessageRequest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * FIFO queue of serialized messages kept in direct byte buffers, so a long backlog does not grow the heap.
+ * Not thread safe, callers synchronize.
+ */
+class OffHeapMessageQueue {
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int RECORD_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+
+    private final long maxBytes;
+    private final ArrayDeque<Chunk> chunks = new ArrayDeque<>();
+    private long usedBytes;
+    private int size;
+
+    OffHeapMessageQueue(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    boolean offer(HeldMessage message) {
+        byte[] payload = message.request().toByteArray();
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (usedBytes + recordSize > maxBytes) {
+            return false;
+        }
+        Chunk chunk = chunks.peekLast();
+        if (chunk == null || chunk.buffer.remaining() < recordSize) {
+            chunk = new Chunk(ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, recordSize)));
+            chunks.addLast(chunk);
+        }
+        chunk.buffer.putLong(message.heldAt()).putInt(payload.length).put(payload);
+        usedBytes += recordSize;
+        size++;
+        return true;
+    }
+
+    HeldMessage poll() {
+        Chunk chunk = firstReadableChunk();
+        if (chunk == null) {
+            return null;
+        }
+        long heldAt = chunk.buffer.getLong(chunk.readPosition);
+        int length = chunk.buffer.getInt(chunk.readPosition + Long.BYTES);
+        ByteBuffer payload = chunk.buffer.duplicate();
+        payload.limit(chunk.readPosition + RECORD_HEADER_SIZE + length).position(chunk.readPosition + RECORD_HEADER_SIZE);
+        chunk.readPosition += RECORD_HEADER_SIZE + length;
+        usedBytes -= RECORD_HEADER_SIZE + length;
+        size--;
+        try {
+            return new HeldMessage(MessageRequest.parseFrom(payload), heldAt);
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Corrupted mailbox overflow record", e);
+        }
+    }
+
+    long peekHeldAt() {
+        Chunk chunk = firstReadableChunk();
+        return chunk == null ? Long.MAX_VALUE : chunk.buffer.getLong(chunk.readPosition);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private Chunk firstReadableChunk() {
+        Chunk chunk = chunks.peekFirst();
+        while (chunk != null && chunk.readPosition == chunk.buffer.position()) {
+            if (chunks.size() == 1) {
+                chunk.buffer.clear();
+                chunk.readPosition = 0;
+                return null;
+            }
+            chunks.pollFirst();
+            chunk = chunks.peekFirst();
+        }
+        return chunk;
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer buffer;
+        private int readPosition;
+
+        private Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.dsva.membership;
+
+import com.dsva.model.Constants;
+import com.proto.chat_bully.MembershipUpdate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Membership updates waiting to be piggybacked on probe traffic. Every update is sent a bounded number of times,
+ * proportional to log(N), and the least transmitted updates go first, so each message stays small however large
+ * the cluster grows.
+ */
+public class DisseminationBuffer {
+    private final Map<Integer, PendingUpdate> pendingUpdates = new HashMap<>();
+
+    public synchronized void enqueue(MembershipUpdate update) {
+        pendingUpdates.put(update.getAddress().getNodeId(), new PendingUpdate(update));
+    }
+
+    public synchronized List<MembershipUpdate> select(int clusterSize) {
+        int maxTransmissions = Constants.SWIM_RETRANSMIT_MULTIPLIER * (32 - Integer.numberOfLeadingZeros(clusterSize));
+        List<PendingUpdate> selected = pendingUpdates.values().stream()
+                .sorted(Comparator.comparingInt(pendingUpdate -> pendingUpdate.transmissions))
+                .limit(Constants.SWIM_MAX_PIGGYBACKED_UPDATES)
+                .toList();
+        List<MembershipUpdate> updates = new ArrayList<>(selected.size());
+        for (PendingUpdate pendingUpdate : selected) {
+            updates.add(pendingUpdate.update);
+            if (++pendingUpdate.transmissions >= maxTransmissions) {
+                pendingUpdates.remove(pendingUpdate.update.getAddress().getNodeId());
+            }
+        }
+        return updates;
+    }
+
+    public synchronized int size() {
+        return pendingUpdates.size();
+    }
+
+    private static final class PendingUpdate {
+        private final MembershipUpdate update;
+        private int transmissions;
+
+        private PendingUpdate(MembershipUpdate update) {
+            this.update = update;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.dsva.membership;
+
+import com.dsva.model.Address;
+import com.proto.chat_bully.MemberStatus;
+
+public record MemberState(Address address, long incarnation, MemberStatus status, long changedAtMillis) {
+}
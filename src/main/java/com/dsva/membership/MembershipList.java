@@ -0,0 +1,62 @@
+package com.dsva.membership;
+
+import com.dsva.model.Address;
+import com.proto.chat_bully.MemberStatus;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Status and incarnation of every member this node has heard about. Nodes that were never mentioned in an update
+ * are implicitly alive with incarnation 0.
+ */
+public class MembershipList {
+    private final Map<Integer, MemberState> members = new HashMap<>();
+
+    public synchronized MemberState get(int nodeId) {
+        return members.get(nodeId);
+    }
+
+    public synchronized long getIncarnation(int nodeId) {
+        MemberState member = members.get(nodeId);
+        return member == null ? 0 : member.incarnation();
+    }
+
+    public synchronized boolean isSuspected(int nodeId) {
+        MemberState member = members.get(nodeId);
+        return member != null && member.status() == MemberStatus.SUSPECT;
+    }
+
+    /**
+     * Applies an update if it overrides the current state: alive needs a higher incarnation or an unknown member,
+     * suspect overrides alive at the same incarnation, and dead overrides anything but a newer incarnation. Returns
+     * whether it was applied.
+     */
+    public synchronized boolean apply(Address address, long incarnation, MemberStatus status) {
+        MemberState current = members.get(address.nodeId());
+        long currentIncarnation = current == null ? 0 : current.incarnation();
+        MemberStatus currentStatus = current == null ? MemberStatus.ALIVE : current.status();
+        boolean overrides = switch (status) {
+            case ALIVE -> current == null || incarnation > currentIncarnation;
+            case SUSPECT -> currentStatus != MemberStatus.DEAD && (incarnation > currentIncarnation
+                    || incarnation == currentIncarnation && currentStatus == MemberStatus.ALIVE);
+            case DEAD -> currentStatus != MemberStatus.DEAD && incarnation >= currentIncarnation;
+            default -> false;
+        };
+        if (overrides) {
+            members.put(address.nodeId(), new MemberState(address, incarnation, status, System.currentTimeMillis()));
+        }
+        return overrides;
+    }
+
+    public synchronized List<MemberState> getSuspectedBefore(long millis) {
+        return members.values().stream()
+                .filter(member -> member.status() == MemberStatus.SUSPECT && member.changedAtMillis() < millis)
+                .toList();
+    }
+
+    public synchronized void forgetDeadBefore(long millis) {
+        members.values().removeIf(member -> member.status() == MemberStatus.DEAD && member.changedAtMillis() < millis);
+    }
+}
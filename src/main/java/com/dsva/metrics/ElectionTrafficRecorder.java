@@ -0,0 +1,33 @@
+package com.dsva.metrics;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.MethodDescriptor;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the election messages a node puts on the wire: requests on the client side, responses on the server side,
+ * so that summing over all nodes gives the total traffic of an election.
+ */
+final class ElectionTrafficRecorder {
+    private static final Set<String> ELECTION_METHODS = Set.of("StartElection", "GrantLeadership", "AnnounceLeader");
+    private final LongAdder messages;
+    private final LongAdder bytes;
+
+    ElectionTrafficRecorder(MetricsRegistry metricsRegistry) {
+        this.messages = metricsRegistry.counter(MetricNames.ELECTION_MESSAGES);
+        this.bytes = metricsRegistry.counter(MetricNames.ELECTION_BYTES);
+    }
+
+    boolean isElectionMethod(String fullMethodName) {
+        return ELECTION_METHODS.contains(MethodDescriptor.extractBareMethodName(fullMethodName));
+    }
+
+    void record(Object message) {
+        messages.increment();
+        if (message instanceof MessageLite protoMessage) {
+            bytes.add(protoMessage.getSerializedSize());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.dsva.metrics;
+
+public class MetricNames {
+    public static final String SERVER_RPC_LATENCY_PREFIX = "rpc.server.latency.";
+    public static final String CLIENT_RPC_LATENCY_PREFIX = "rpc.client.latency.";
+    public static final String SERVER_RPC_ERRORS_PREFIX = "rpc.server.errors.";
+    public static final String CLIENT_RPC_ERRORS_PREFIX = "rpc.client.errors.";
+    public static final String ELECTIONS_COMPLETED = "election.completed";
+    public static final String ELECTIONS_FAILED = "election.failed";
+    public static final String ELECTION_DURATION = "election.durationMillis";
+    public static final String ELECTIONS_SUPPRESSED = "election.suppressed";
+    public static final String ELECTION_MESSAGES = "election.messages";
+    public static final String ELECTION_BYTES = "election.bytes";
+    public static final String ELECTION_MESSAGES_PER_ELECTION = "election.messagesPerElection";
+    public static final String ELECTION_BYTES_PER_ELECTION = "election.bytesPerElection";
+    public static final String ELECTION_GRANTS = "election.grants";
+    public static final String LEADER_TERM = "lease.term";
+    public static final String LEASE_REJECTED_RELAYS = "lease.rejectedRelays";
+    public static final String LEASE_STEP_DOWNS = "lease.stepDowns";
+    public static final String RELAY_PENDING_MESSAGES = "relay.pendingMessages";
+    public static final String RELAY_LATENCY = "relay.latencyMicros";
+    public static final String RELAYED_MESSAGES = "relay.delivered";
+    public static final String RELAY_FAILURES = "relay.failed";
+    public static final String ROUTING_DIRECT = "routing.direct";
+    public static final String ROUTING_VIA_LEADER = "routing.viaLeader";
+    public static final String ROUTING_FALLBACKS = "routing.fallbacks";
+    public static final String BROADCASTS_SENT = "broadcast.sent";
+    public static final String BROADCASTS_DELIVERED = "broadcast.delivered";
+    public static final String BROADCASTS_FORWARDED = "broadcast.forwarded";
+    public static final String BROADCAST_DUPLICATES = "broadcast.duplicates";
+    public static final String BROADCAST_ADOPTED_SUBTREES = "broadcast.adoptedSubtrees";
+    public static final String SWIM_PINGS = "swim.pings";
+    public static final String SWIM_INDIRECT_PINGS = "swim.indirectPings";
+    public static final String SWIM_SUSPECTED = "swim.suspected";
+    public static final String SWIM_CONFIRMED_DEAD = "swim.confirmedDead";
+    public static final String SWIM_REFUTED = "swim.refuted";
+    public static final String SWIM_INCARNATION = "swim.incarnation";
+    public static final String SWIM_PENDING_UPDATES = "swim.pendingUpdates";
+    public static final String HEARTBEAT_SUCCESSES = "probe.heartbeat.success";
+    public static final String HEARTBEAT_FAILURES = "probe.heartbeat.failure";
+    public static final String HEALTH_CHECK_ALIVE = "probe.healthCheck.alive";
+    public static final String HEALTH_CHECK_DEAD = "probe.healthCheck.dead";
+    public static final String SUSPECTED_NODES = "probe.suspected";
+    public static final String TOPOLOGY_EPOCH = "topology.epoch";
+    public static final String TOPOLOGY_EPOCH_CHANGES = "topology.epochChanges";
+    public static final String TOPOLOGY_STALE_UPDATES = "topology.staleUpdates";
+    public static final String TOPOLOGY_GAPS = "topology.gaps";
+    public static final String KNOWN_NODES = "topology.knownNodes";
+    public static final String WAL_UNDELIVERED = "wal.undelivered";
+    public static final String WAL_RECOVERY_DURATION = "wal.recoveryMillis";
+    public static final String WAL_BATCH_SIZE = "wal.batchSize";
+    public static final String WAL_COMPACTED_SEGMENTS = "wal.compactedSegments";
+    public static final String WAL_REPLAYED_MESSAGES = "wal.replayed";
+    public static final String WAL_REPLAY_DURATION = "wal.replayDurationMillis";
+    public static final String DUPLICATE_MESSAGES = "relay.duplicates";
+    public static final String MAILBOX_HELD = "mailbox.held";
+    public static final String MAILBOX_DRAINED = "mailbox.drained";
+    public static final String MAILBOX_REJECTED = "mailbox.rejected";
+    public static final String MAILBOX_EVICTED_BY_AGE = "mailbox.evicted.age";
+    public static final String MAILBOX_EVICTED_BY_SIZE = "mailbox.evicted.size";
+    public static final String MAILBOX_PENDING = "mailbox.pending";
+    public static final String MAILBOX_OVERFLOW_BYTES = "mailbox.overflowBytes";
+
+    private MetricNames() {
+        throw new UnsupportedOperationException("Can not init static class");
+    }
+}
@@ -0,0 +1,82 @@
+package com.dsva.metrics;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsClientInterceptor implements ClientInterceptor {
+    private final MetricsRegistry metricsRegistry;
+    private final ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final ElectionTrafficRecorder electionTraffic;
+
+    public MetricsClientInterceptor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        this.electionTraffic = new ElectionTrafficRecorder(metricsRegistry);
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        if (method.getType() != MethodDescriptor.MethodType.UNARY) {
+            return next.newCall(method, callOptions);
+        }
+        String methodName = method.getFullMethodName();
+        Histogram latency = getLatency(methodName);
+        LongAdder errorCounter = getErrorCounter(methodName);
+        boolean electionCall = electionTraffic.isElectionMethod(methodName);
+
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void sendMessage(ReqT message) {
+                if (electionCall) {
+                    electionTraffic.record(message);
+                }
+                super.sendMessage(message);
+            }
+
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long startNanos = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+                        if (!status.isOk()) {
+                            errorCounter.increment();
+                        }
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    private Histogram getLatency(String fullMethodName) {
+        Histogram latency = latencies.get(fullMethodName);
+        if (latency == null) {
+            latency = latencies.computeIfAbsent(fullMethodName, name -> metricsRegistry.histogram(
+                    MetricNames.CLIENT_RPC_LATENCY_PREFIX + MethodDescriptor.extractBareMethodName(name)));
+        }
+        return latency;
+    }
+
+    private LongAdder getErrorCounter(String fullMethodName) {
+        LongAdder errorCounter = errors.get(fullMethodName);
+        if (errorCounter == null) {
+            errorCounter = errors.computeIfAbsent(fullMethodName, name -> metricsRegistry.counter(
+                    MetricNames.CLIENT_RPC_ERRORS_PREFIX + MethodDescriptor.extractBareMethodName(name)));
+        }
+        return errorCounter;
+    }
+}
@@ -0,0 +1,75 @@
+package com.dsva.metrics;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class MetricsServerInterceptor implements ServerInterceptor {
+    private final MetricsRegistry metricsRegistry;
+    private final ConcurrentHashMap<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final ElectionTrafficRecorder electionTraffic;
+
+    public MetricsServerInterceptor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        this.electionTraffic = new ElectionTrafficRecorder(metricsRegistry);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (call.getMethodDescriptor().getType() != MethodDescriptor.MethodType.UNARY) {
+            return next.startCall(call, headers);
+        }
+        String methodName = call.getMethodDescriptor().getFullMethodName();
+        Histogram latency = getLatency(methodName);
+        LongAdder errorCounter = getErrorCounter(methodName);
+        long startNanos = System.nanoTime();
+        boolean electionCall = electionTraffic.isElectionMethod(methodName);
+
+        return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void sendMessage(RespT message) {
+                if (electionCall) {
+                    electionTraffic.record(message);
+                }
+                super.sendMessage(message);
+            }
+
+            @Override
+            public void close(Status status, Metadata trailers) {
+                latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+                if (!status.isOk()) {
+                    errorCounter.increment();
+                }
+                super.close(status, trailers);
+            }
+        }, headers);
+    }
+
+    private Histogram getLatency(String fullMethodName) {
+        Histogram latency = latencies.get(fullMethodName);
+        if (latency == null) {
+            latency = latencies.computeIfAbsent(fullMethodName, name -> metricsRegistry.histogram(
+                    MetricNames.SERVER_RPC_LATENCY_PREFIX + MethodDescriptor.extractBareMethodName(name)));
+        }
+        return latency;
+    }
+
+    private LongAdder getErrorCounter(String fullMethodName) {
+        LongAdder errorCounter = errors.get(fullMethodName);
+        if (errorCounter == null) {
+            errorCounter = errors.computeIfAbsent(fullMethodName, name -> metricsRegistry.counter(
+                    MetricNames.SERVER_RPC_ERRORS_PREFIX + MethodDescriptor.extractBareMethodName(name)));
+        }
+        return errorCounter;
+    }
+}
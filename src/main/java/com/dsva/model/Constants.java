@@ -1,5 +1,7 @@
 package com.dsva.model;
 
+import java.util.concurrent.TimeUnit;
+
 public class Constants {
     public static final int MAX_RETRIES = 3;
     public static final long MAX_ACCEPTABLE_DELAY = 5000;
@@ -7,4 +9,49 @@ public class Constants {
     public static final int DEFAULT_PORT = 50050;
     public static final String HOSTNAME = "localhost";
     public static final int EXPECTED_ENTRY_POINT_NODE_ID = 5;
+    public static final long CHANNEL_IDLE_TIMEOUT = 60000;
+    public static final int STREAM_ACK_BATCH_SIZE = 64;
+    public static final long STREAM_ACK_FLUSH_INTERVAL = 5;
+    public static final int STREAM_MAX_ACK_TIMEOUTS = 3;
+    public static final int STREAM_MAX_QUEUED_MESSAGES = 1024;
+    public static final int TOPOLOGY_BROADCAST_PARALLELISM = 16;
+    public static final long HEARTBEAT_INTERVAL = Long.getLong("dsva.heartbeat.interval", 250);
+    public static final int HEARTBEAT_HISTORY_SIZE = 100;
+    public static final long MIN_HEARTBEAT_STD_DEVIATION = Long.getLong("dsva.heartbeat.minStdDeviation", 50);
+    public static final int MAX_ELECTION_ATTEMPTS = 3;
+    public static final long ELECTION_RETRY_DELAY = Long.getLong("dsva.election.retryDelay", 4 * HEARTBEAT_INTERVAL);
+    public static final long ELECTION_MAX_RETRY_DELAY = Long.getLong("dsva.election.maxRetryDelay", 64 * HEARTBEAT_INTERVAL);
+    public static final double PHI_SUSPICION_THRESHOLD = Double.parseDouble(System.getProperty("dsva.phi.threshold", "8.0"));
+    public static final long RTT_MIN_TIMEOUT = Long.getLong("dsva.rtt.minTimeout", 20);
+    public static final long RTT_MAX_TIMEOUT = Long.getLong("dsva.rtt.maxTimeout", MAX_ACCEPTABLE_DELAY);
+    public static final long RTT_INITIAL_TIMEOUT = Long.getLong("dsva.rtt.initialTimeout", 1000);
+    public static final String SEED_NODES = System.getProperty("dsva.seeds", "1-" + EXPECTED_ENTRY_POINT_NODE_ID);
+    public static final long DISCOVERY_TIMEOUT = Long.getLong("dsva.discovery.timeout", 3000);
+    public static final long HOT_PATH_LOGS_PER_SECOND = Long.getLong("dsva.log.hotPathPerSecond", 50);
+    public static final String LEADER_CACHE_DIRECTORY = System.getProperty("dsva.leaderCache", System.getProperty("java.io.tmpdir"));
+    public static final String WAL_DIRECTORY = System.getProperty("dsva.wal.dir", "wal");
+    public static final int WAL_SEGMENT_SIZE = Integer.getInteger("dsva.wal.segmentSize", 4 * 1024 * 1024);
+    public static final boolean WAL_FSYNC = Boolean.parseBoolean(System.getProperty("dsva.wal.fsync", "true"));
+    public static final int WAL_BATCH_SIZE = Integer.getInteger("dsva.wal.batchSize", 256);
+    public static final long WAL_COMPACTION_INTERVAL = Long.getLong("dsva.wal.compactionInterval", 1000);
+    public static final int WAL_MAX_SEALED_SEGMENTS = Integer.getInteger("dsva.wal.maxSealedSegments", 4);
+    public static final long WAL_RETENTION = Long.getLong("dsva.wal.retention", TimeUnit.MINUTES.toMillis(10));
+    public static final int DELIVERED_MESSAGE_IDS_CAPACITY = Integer.getInteger("dsva.wal.dedupCapacity", 65536);
+    public static final boolean MAILBOX_ENABLED = Boolean.parseBoolean(System.getProperty("dsva.mailbox.enabled", "true"));
+    public static final int MAILBOX_RING_CAPACITY = Integer.getInteger("dsva.mailbox.ringCapacity", 1024);
+    public static final long MAILBOX_OVERFLOW_BYTES = Long.getLong("dsva.mailbox.overflowBytes", 8 * 1024 * 1024);
+    public static final long MAILBOX_RETENTION = Long.getLong("dsva.mailbox.retention", TimeUnit.MINUTES.toMillis(1));
+    public static final int MAILBOX_DRAIN_BATCH = Integer.getInteger("dsva.mailbox.drainBatch", 128);
+    public static final long MAILBOX_SWEEP_INTERVAL = Long.getLong("dsva.mailbox.sweepInterval", 1000);
+    public static final long LEADER_LEASE_DURATION = Long.getLong("dsva.lease.duration", 8 * HEARTBEAT_INTERVAL);
+    public static final ThreadMode THREAD_MODE = ThreadMode.fromProperty(System.getProperty("dsva.threads", "platform"));
+    public static final int BROADCAST_FAN_OUT = Integer.getInteger("dsva.broadcast.fanOut", 0);
+    public static final MembershipMode MEMBERSHIP_MODE = MembershipMode.fromProperty(System.getProperty("dsva.membership", "leader"));
+    public static final long SWIM_PROTOCOL_PERIOD = Long.getLong("dsva.swim.period", 4 * HEARTBEAT_INTERVAL);
+    public static final int SWIM_INDIRECT_PROBES = Integer.getInteger("dsva.swim.indirectProbes", 3);
+    public static final int SWIM_SUSPICION_MULTIPLIER = Integer.getInteger("dsva.swim.suspicionMultiplier", 4);
+    public static final int SWIM_RETRANSMIT_MULTIPLIER = Integer.getInteger("dsva.swim.retransmitMultiplier", 3);
+    public static final int SWIM_MAX_PIGGYBACKED_UPDATES = Integer.getInteger("dsva.swim.maxPiggyback", 8);
+    public static final ElectionAlgorithm ELECTION_ALGORITHM = ElectionAlgorithm.fromProperty(System.getProperty("dsva.election", "bully"));
+    public static final RoutingMode ROUTING_MODE = RoutingMode.fromProperty(System.getProperty("dsva.routing", "leader"));
 }
\ No newline at end of file
@@ -3,27 +3,46 @@ package com.dsva.model;
 import com.dsva.exception.NodeNotFoundException;
 import com.dsva.pattern.builder.ProtoModelBuilder;
 import com.proto.chat_bully.AvailableNodesAddressesList;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashSet;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Slf4j
 @Getter
-@Setter
-@AllArgsConstructor
 public class DSNeighbours {
-    private ConcurrentHashMap<Integer, Address> knownNodes;
-    private Address leaderAddress;
+    private static final long NO_EPOCH_TERM = -1;
+    private static final int NO_LEASE_HOLDER = -1;
+    private final Address myAddress;
+    private volatile TopologySnapshot snapshot;
+    @Setter
+    private volatile Address leaderAddress;
+    private long topologyEpoch;
+    private long epochTerm = NO_EPOCH_TERM;
+    private long leaderTerm;
+    private int leaseHolderId = NO_LEASE_HOLDER;
+    private long leaseExpiresAtNanos;
+    private final List<Consumer<Address>> nodeRemovalListeners = new CopyOnWriteArrayList<>();
+
+    public DSNeighbours(Address myAddress) {
+        this.myAddress = myAddress;
+        this.leaderAddress = myAddress;
+        this.snapshot = TopologySnapshot.empty(myAddress);
+    }
+
+    public void addNodeRemovalListener(Consumer<Address> listener) {
+        nodeRemovalListeners.add(listener);
+    }
 
-    public DSNeighbours(Address leaderAddress) {
-        this.leaderAddress = leaderAddress;
-        this.knownNodes = new ConcurrentHashMap<>();
+    public Map<Integer, Address> getKnownNodes() {
+        return snapshot.getAddressesById();
     }
 
     @Override
@@ -35,14 +54,14 @@ public class DSNeighbours {
 
         return colorCyan + "Current Topology:\n" + reset +
                 colorGreen + "Known Nodes: " + reset +
-                knownNodes + "\n" +
+                snapshot + "\n" +
                 colorYellow + "Leader: " + reset +
                 leaderAddress;
     }
 
 
-    public Address getTargetNodeAddress(Integer nodeId) throws NodeNotFoundException {
-        Address address = knownNodes.get(nodeId);
+    public Address getTargetNodeAddress(int nodeId) throws NodeNotFoundException {
+        Address address = snapshot.get(nodeId);
 
         if (address != null) {
             return address;
@@ -51,50 +70,173 @@ public class DSNeighbours {
         throw new NodeNotFoundException("Trying to access not existing node: " + nodeId);
     }
 
-    public void addNewNode(@NonNull Address address) {
+    public synchronized long getTopologyEpoch() {
+        return topologyEpoch;
+    }
+
+    public synchronized long advanceTopologyEpoch() {
+        epochTerm = leaderTerm;
+        return ++topologyEpoch;
+    }
+
+    public synchronized long getLeaderTerm() {
+        return leaderTerm;
+    }
+
+    public synchronized int getLeaseHolderId() {
+        return leaseHolderId;
+    }
+
+    public synchronized long startLeaderTerm(int leaderId) {
+        leaderTerm++;
+        grantLease(leaderId);
+        return leaderTerm;
+    }
+
+    /**
+     * Grants or renews the lease of the given leader unless a newer term is already known. Equal terms are
+     * resolved in favour of the higher node id, the same way the bully election resolves them.
+     */
+    public synchronized boolean renewLease(int leaderId, long term) {
+        if (!isTermCurrent(leaderId, term)) {
+            return false;
+        }
+        leaderTerm = term;
+        grantLease(leaderId);
+        return true;
+    }
+
+    public synchronized boolean isTermCurrent(int leaderId, long term) {
+        return term > leaderTerm || (term == leaderTerm && leaderId >= leaseHolderId);
+    }
+
+    public synchronized boolean observeTerm(long term) {
+        if (term <= leaderTerm) {
+            return false;
+        }
+        leaderTerm = term;
+        leaseHolderId = NO_LEASE_HOLDER;
+        return true;
+    }
+
+    public synchronized boolean isLeaseValid() {
+        return leaseHolderId != NO_LEASE_HOLDER && System.nanoTime() - leaseExpiresAtNanos < 0;
+    }
+
+    public synchronized boolean isLeaseHeldBy(int nodeId) {
+        return leaseHolderId == nodeId && isLeaseValid();
+    }
+
+    /**
+     * Topology updates are only accepted from the leader of the current term, so a deposed leader cannot overwrite
+     * the view published by its successor. Epochs are compared within the term that published them.
+     */
+    public synchronized TopologyUpdateResult applySnapshot(long epoch, int leaderId, long term, Collection<Address> addresses) {
+        if (!isPublishedByCurrentLeader(leaderId, term) || (term == epochTerm && epoch < topologyEpoch)) {
+            log.debug("Discarding stale topology snapshot {} of term {} (current epoch {} of term {})",
+                    epoch, term, topologyEpoch, epochTerm);
+            return TopologyUpdateResult.STALE;
+        }
+
+        TopologySnapshot previousSnapshot = snapshot;
+        snapshot = previousSnapshot.withAddresses(addresses);
+        notifyNodesRemoved(previousSnapshot);
+        topologyEpoch = epoch;
+        epochTerm = term;
+        return TopologyUpdateResult.APPLIED;
+    }
+
+    public synchronized TopologyUpdateResult applyDelta(long epoch, int leaderId, long term, Collection<Address> addedNodes,
+                                                        Collection<Integer> removedNodeIds) {
+        if (!isPublishedByCurrentLeader(leaderId, term)) {
+            log.debug("Discarding topology delta {} of stale term {} (current term {})", epoch, term, leaderTerm);
+            return TopologyUpdateResult.STALE;
+        }
+        if (term != epochTerm || epoch > topologyEpoch + 1) {
+            log.debug("Topology delta {} does not follow current epoch {}", epoch, topologyEpoch);
+            return TopologyUpdateResult.GAP;
+        }
+        if (epoch <= topologyEpoch) {
+            log.debug("Discarding stale topology delta {} (current epoch {})", epoch, topologyEpoch);
+            return TopologyUpdateResult.STALE;
+        }
+
+        TopologySnapshot previousSnapshot = snapshot;
+        snapshot = previousSnapshot.withChanges(addedNodes, removedNodeIds);
+        notifyNodesRemoved(previousSnapshot);
+        topologyEpoch = epoch;
+        return TopologyUpdateResult.APPLIED;
+    }
+
+    public synchronized void addNewNode(@NonNull Address address) {
         if (isAddressValid(address)) {
-            knownNodes.put(address.nodeId(), address);
+            snapshot = snapshot.withChanges(List.of(address), List.of());
             log.info("Adding new Node{hostname:{}, port:{}, nodeId:{}}",
                     address.hostname(), address.port(), address.nodeId());
-            log.info("Topology after adding: {}", knownNodes.values());
+            log.debug("Topology after adding: {}", snapshot);
         }
     }
 
-    public void removeNode(@NonNull Integer nodeId) {
-        if (isNodeIdValid(nodeId) && knownNodes.containsKey(nodeId)) {
-            knownNodes.remove(nodeId);
-            log.info("Node with id: {} was successfully removed. Current topology:\n{}", nodeId, knownNodes);
+    public synchronized void removeNode(@NonNull Integer nodeId) {
+        Address removedAddress = isNodeIdValid(nodeId) ? snapshot.get(nodeId) : null;
+        if (removedAddress != null) {
+            snapshot = snapshot.withChanges(List.of(), List.of(nodeId));
+            notifyNodeRemoved(removedAddress);
+            log.info("Node with id: {} was successfully removed", nodeId);
+            log.debug("Current topology:\n{}", this);
         } else {
             log.warn("Cannot remove node with id {}", nodeId);
-            log.warn(toString());
+            log.debug("{}", this);
         }
     }
 
     public boolean isNodePresent(int nodeId) {
-        return knownNodes.containsKey(nodeId);
+        return snapshot.contains(nodeId);
     }
 
     public com.proto.chat_bully.Address getCurrentProtoLeader() {
         return ProtoModelBuilder.buildProtoLeader(this);
     }
 
-    public AvailableNodesAddressesList getCurrentAvailableNodesProtoAddresses(int myPort, int myNodeId, int senderNodId, String myHostname) {
-        AvailableNodesAddressesList.Builder availableNodesAddressesList = AvailableNodesAddressesList.newBuilder();
+    public AvailableNodesAddressesList getAvailableNodesProtoAddresses() {
+        return snapshot.getAvailableNodesProtoAddresses();
+    }
 
-        for (Address nodeAddress : knownNodes.values()) {
-            if (nodeAddress.nodeId() != senderNodId) {
-                availableNodesAddressesList.addAddresses(ProtoModelBuilder.buildProtoAddress(nodeAddress.port(), nodeAddress.nodeId(), nodeAddress.hostname()));
-            }
+    public List<Address> getHigherNodes(int myNodeId) {
+        return snapshot.getHigherNodes(myNodeId);
+    }
+
+    private boolean isPublishedByCurrentLeader(int leaderId, long term) {
+        return term >= epochTerm && isTermCurrent(leaderId, term);
+    }
+
+    private void grantLease(int leaderId) {
+        leaseHolderId = leaderId;
+        leaseExpiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.LEADER_LEASE_DURATION);
+    }
+
+    /**
+     * A lease of a node that left the topology must not keep protecting it, otherwise the election that follows its
+     * departure would be suppressed until the lease runs out.
+     */
+    private void revokeLeaseOf(int nodeId) {
+        if (leaseHolderId == nodeId && nodeId != myAddress.nodeId()) {
+            log.info("Revoking the lease of node {} that left the topology", nodeId);
+            leaseHolderId = NO_LEASE_HOLDER;
         }
+    }
 
-        availableNodesAddressesList.addAddresses(ProtoModelBuilder.buildProtoAddress(myPort, myNodeId, myHostname));
-        return availableNodesAddressesList.build();
+    private void notifyNodesRemoved(TopologySnapshot previousSnapshot) {
+        for (Address previousAddress : previousSnapshot.getAddresses()) {
+            if (!previousAddress.equals(snapshot.get(previousAddress.nodeId()))) {
+                notifyNodeRemoved(previousAddress);
+            }
+        }
     }
 
-    public HashSet<Address> getHigherNodes(int myNodeId) {
-        return knownNodes.values().stream()
-                .filter(address -> address.nodeId() > myNodeId)
-                .collect(Collectors.toCollection(HashSet::new));
+    private void notifyNodeRemoved(Address address) {
+        revokeLeaseOf(address.nodeId());
+        nodeRemovalListeners.forEach(listener -> listener.accept(address));
     }
 
     private boolean isAddressValid(Address address) {
@@ -0,0 +1,12 @@
+package com.dsva.model;
+
+public enum DeliveryStatus {
+    DELIVERED,
+    // The leader holds the message in the receiver's mailbox and delivers it once the receiver is back.
+    ACCEPTED,
+    FAILED;
+
+    public boolean isSuccessful() {
+        return this != FAILED;
+    }
+}
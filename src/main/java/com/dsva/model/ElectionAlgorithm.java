@@ -0,0 +1,12 @@
+package com.dsva.model;
+
+import java.util.Locale;
+
+public enum ElectionAlgorithm {
+    BULLY,
+    MODIFIED_BULLY;
+
+    public static ElectionAlgorithm fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
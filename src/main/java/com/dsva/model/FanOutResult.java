@@ -0,0 +1,10 @@
+package com.dsva.model;
+
+import java.util.Set;
+
+public record FanOutResult(Set<Integer> acknowledgedNodes, Set<Integer> rejectedNodes, Set<Integer> failedNodes) {
+
+    public boolean isFullyAcknowledged() {
+        return rejectedNodes.isEmpty() && failedNodes.isEmpty();
+    }
+}
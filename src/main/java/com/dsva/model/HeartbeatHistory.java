@@ -0,0 +1,55 @@
+package com.dsva.model;
+
+public class HeartbeatHistory {
+    private final long[] intervals;
+    private int nextIndex;
+    private int intervalsCount;
+    private long intervalsSum;
+    private double intervalsSquaresSum;
+    private long lastArrivalMillis;
+
+    public HeartbeatHistory(int capacity, long firstArrivalMillis) {
+        this.intervals = new long[capacity];
+        this.lastArrivalMillis = firstArrivalMillis;
+    }
+
+    public synchronized void recordArrival(long arrivalMillis) {
+        long interval = arrivalMillis - lastArrivalMillis;
+        lastArrivalMillis = arrivalMillis;
+
+        if (intervalsCount == intervals.length) {
+            long evictedInterval = intervals[nextIndex];
+            intervalsSum -= evictedInterval;
+            intervalsSquaresSum -= (double) evictedInterval * evictedInterval;
+        } else {
+            intervalsCount++;
+        }
+        intervals[nextIndex] = interval;
+        intervalsSum += interval;
+        intervalsSquaresSum += (double) interval * interval;
+        nextIndex = (nextIndex + 1) % intervals.length;
+    }
+
+    public synchronized long getLastArrivalMillis() {
+        return lastArrivalMillis;
+    }
+
+    public synchronized double phi(long nowMillis, long expectedIntervalMillis, long minStdDeviationMillis) {
+        double mean = expectedIntervalMillis;
+        double variance = (expectedIntervalMillis / 4.0) * (expectedIntervalMillis / 4.0);
+        if (intervalsCount > 0) {
+            mean = (double) intervalsSum / intervalsCount;
+            variance = intervalsSquaresSum / intervalsCount - mean * mean;
+        }
+        double stdDeviation = Math.max(Math.sqrt(Math.max(variance, 0)), minStdDeviationMillis);
+        long timeSinceLastArrival = nowMillis - lastArrivalMillis;
+
+        // Logistic approximation of the normal CDF, as used by the phi accrual failure detector.
+        double y = (timeSinceLastArrival - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (timeSinceLastArrival > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+}
@@ -0,0 +1,12 @@
+package com.dsva.model;
+
+import java.util.Locale;
+
+public enum MembershipMode {
+    LEADER,
+    SWIM;
+
+    public static MembershipMode fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,12 @@
+package com.dsva.model;
+
+import java.util.Locale;
+
+public enum RoutingMode {
+    LEADER,
+    DIRECT;
+
+    public static RoutingMode fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,49 @@
+package com.dsva.model;
+
+public class RttEstimator {
+    private static final double RTT_GAIN = 0.125;
+    private static final double VARIANCE_GAIN = 0.25;
+    private static final int VARIANCE_FACTOR = 4;
+    private static final int MAX_BACKOFF_EXPONENT = 6;
+
+    private double smoothedRttMillis;
+    private double rttVarianceMillis;
+    private boolean sampled;
+    private int backoffExponent;
+
+    public synchronized void recordSample(long rttNanos) {
+        double sampleMillis = rttNanos / 1_000_000.0;
+        backoffExponent = 0;
+        if (!sampled) {
+            smoothedRttMillis = sampleMillis;
+            rttVarianceMillis = sampleMillis / 2;
+            sampled = true;
+            return;
+        }
+        rttVarianceMillis = (1 - VARIANCE_GAIN) * rttVarianceMillis + VARIANCE_GAIN * Math.abs(smoothedRttMillis - sampleMillis);
+        smoothedRttMillis = (1 - RTT_GAIN) * smoothedRttMillis + RTT_GAIN * sampleMillis;
+    }
+
+    /**
+     * Doubles the timeout after a call timed out, as in RFC 6298, until the next valid sample arrives.
+     */
+    public synchronized void recordTimeout() {
+        backoffExponent = Math.min(backoffExponent + 1, MAX_BACKOFF_EXPONENT);
+    }
+
+    public synchronized int getBackoffMultiplier() {
+        return 1 << backoffExponent;
+    }
+
+    public synchronized boolean isSampled() {
+        return sampled;
+    }
+
+    public synchronized double getSmoothedRttMillis() {
+        return smoothedRttMillis;
+    }
+
+    public synchronized double getRetransmissionTimeoutMillis() {
+        return smoothedRttMillis + VARIANCE_FACTOR * rttVarianceMillis;
+    }
+}
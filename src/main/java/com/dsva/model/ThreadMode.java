@@ -0,0 +1,12 @@
+package com.dsva.model;
+
+import java.util.Locale;
+
+public enum ThreadMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public static ThreadMode fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,22 @@
+package com.dsva.model;
+
+public enum TimeoutKind {
+    HEARTBEAT(1),
+    ELECTION_ANSWER(2),
+    COORDINATOR_WAIT(6),
+    TOPOLOGY(2),
+    RELAY(3),
+    // A message sent through the leader waits for the leader's own relay to the receiver as well.
+    RELAY_END_TO_END(6),
+    JOIN(4);
+
+    private final int rttMultiplier;
+
+    TimeoutKind(int rttMultiplier) {
+        this.rttMultiplier = rttMultiplier;
+    }
+
+    public int getRttMultiplier() {
+        return rttMultiplier;
+    }
+}
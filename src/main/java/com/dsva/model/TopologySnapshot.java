@@ -0,0 +1,123 @@
+package com.dsva.model;
+
+import com.dsva.pattern.builder.ProtoModelBuilder;
+import com.proto.chat_bully.AvailableNodesAddressesList;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class TopologySnapshot {
+    private final Address myAddress;
+    private final int[] nodeIds;
+    private final Address[] addresses;
+    private final com.proto.chat_bully.Address[] protoAddresses;
+    private final List<Address> addressList;
+    private final Map<Integer, Address> addressesById;
+    private final AvailableNodesAddressesList availableNodesProtoAddresses;
+
+    private TopologySnapshot(Address myAddress, Address[] sortedAddresses, TopologySnapshot previous) {
+        this.myAddress = myAddress;
+        this.addresses = sortedAddresses;
+        this.nodeIds = new int[sortedAddresses.length];
+        this.protoAddresses = new com.proto.chat_bully.Address[sortedAddresses.length];
+        Map<Integer, Address> byId = new HashMap<>(sortedAddresses.length * 2);
+        AvailableNodesAddressesList.Builder protoList = AvailableNodesAddressesList.newBuilder();
+
+        for (int i = 0; i < sortedAddresses.length; i++) {
+            Address address = sortedAddresses[i];
+            nodeIds[i] = address.nodeId();
+            protoAddresses[i] = previous == null ? toProto(address) : previous.getProtoAddress(address);
+            byId.put(address.nodeId(), address);
+            protoList.addAddresses(protoAddresses[i]);
+        }
+        protoList.addAddresses(toProto(myAddress));
+
+        this.addressList = Collections.unmodifiableList(Arrays.asList(sortedAddresses));
+        this.addressesById = Collections.unmodifiableMap(byId);
+        this.availableNodesProtoAddresses = protoList.build();
+    }
+
+    public static TopologySnapshot empty(Address myAddress) {
+        return new TopologySnapshot(myAddress, new Address[0], null);
+    }
+
+    public TopologySnapshot withAddresses(Collection<Address> newAddresses) {
+        Map<Integer, Address> merged = new HashMap<>();
+        for (Address address : newAddresses) {
+            merged.put(address.nodeId(), address);
+        }
+        return build(merged);
+    }
+
+    public TopologySnapshot withChanges(Collection<Address> addedNodes, Collection<Integer> removedNodeIds) {
+        Map<Integer, Address> merged = new HashMap<>(addressesById);
+        for (Address address : addedNodes) {
+            merged.put(address.nodeId(), address);
+        }
+        for (Integer nodeId : removedNodeIds) {
+            merged.remove(nodeId);
+        }
+        return build(merged);
+    }
+
+    public Address get(int nodeId) {
+        return addressesById.get(nodeId);
+    }
+
+    public boolean contains(int nodeId) {
+        return addressesById.containsKey(nodeId);
+    }
+
+    public int size() {
+        return addresses.length;
+    }
+
+    public List<Address> getAddresses() {
+        return addressList;
+    }
+
+    public Map<Integer, Address> getAddressesById() {
+        return addressesById;
+    }
+
+    /**
+     * The only range query of the snapshot, hence the sorted id array next to the map used for point lookups.
+     */
+    public List<Address> getHigherNodes(int nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        int firstHigher = index >= 0 ? index + 1 : -index - 1;
+        return addressList.subList(firstHigher, addresses.length);
+    }
+
+    public AvailableNodesAddressesList getAvailableNodesProtoAddresses() {
+        return availableNodesProtoAddresses;
+    }
+
+    @Override
+    public String toString() {
+        return addressList.toString();
+    }
+
+    private TopologySnapshot build(Map<Integer, Address> nodes) {
+        nodes.remove(myAddress.nodeId());
+        Address[] sortedAddresses = nodes.values().toArray(Address[]::new);
+        Arrays.sort(sortedAddresses, (first, second) -> Integer.compare(first.nodeId(), second.nodeId()));
+        return new TopologySnapshot(myAddress, sortedAddresses, this);
+    }
+
+    private com.proto.chat_bully.Address getProtoAddress(Address address) {
+        int index = Arrays.binarySearch(nodeIds, address.nodeId());
+        if (index >= 0 && addresses[index].equals(address)) {
+            return protoAddresses[index];
+        }
+        return toProto(address);
+    }
+
+    private static com.proto.chat_bully.Address toProto(Address address) {
+        return ProtoModelBuilder.buildProtoAddress(address.port(), address.nodeId(), address.hostname());
+    }
+}
@@ -0,0 +1,7 @@
+package com.dsva.model;
+
+public enum TopologyUpdateResult {
+    APPLIED,
+    STALE,
+    GAP
+}
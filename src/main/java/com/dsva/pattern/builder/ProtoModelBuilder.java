@@ -1,6 +1,9 @@
 package com.dsva.pattern.builder;
 
+import com.dsva.model.Address;
 import com.dsva.model.DSNeighbours;
+import com.proto.chat_bully.MemberStatus;
+import com.proto.chat_bully.MembershipUpdate;
 
 public class ProtoModelBuilder {
 
@@ -14,6 +17,14 @@ public class ProtoModelBuilder {
                 .build();
     }
 
+    public static MembershipUpdate buildMembershipUpdate(Address address, long incarnation, MemberStatus status) {
+        return MembershipUpdate.newBuilder()
+                .setAddress(buildProtoAddress(address.port(), address.nodeId(), address.hostname()))
+                .setIncarnation(incarnation)
+                .setStatus(status)
+                .build();
+    }
+
     public static com.proto.chat_bully.Address buildProtoLeader(DSNeighbours myNeighbours) {
         return com.proto.chat_bully.Address.newBuilder()
                 .setHostname(myNeighbours.getLeaderAddress().hostname())
@@ -1,18 +1,69 @@
 package com.dsva.pattern.builder;
 
+import com.dsva.wal.LoggedMessage;
 import com.proto.chat_bully.*;
 
+import java.util.Collection;
+
 public class RequestBuilder {
 
     private RequestBuilder() {
         throw new UnsupportedOperationException();
     }
 
-    public static MessageRequest buildMessageRequest(String message, int senderNodeId, int receiverNodeId) {
+    public static MessageRequest buildMessageRequest(String message, int senderNodeId, int receiverNodeId,
+                                                     long messageId, long acceptedAt) {
         return MessageRequest.newBuilder()
                 .setMessage(message)
                 .setSenderId(senderNodeId)
                 .setReceiverId(receiverNodeId)
+                .setMessageId(messageId)
+                .setAcceptedAt(acceptedAt)
+                .build();
+    }
+
+    public static MessageRequest buildMessageRequest(LoggedMessage message) {
+        return buildMessageRequest(message.message(), message.senderId(), message.receiverId(),
+                message.messageId(), message.acceptedAt());
+    }
+
+    public static FetchUndeliveredRequest buildFetchUndeliveredRequest(int leaderId) {
+        return FetchUndeliveredRequest.newBuilder()
+                .setLeaderId(leaderId)
+                .build();
+    }
+
+    public static MarkDeliveredRequest buildMarkDeliveredRequest(int senderNodeId, Collection<Long> messageIds) {
+        return MarkDeliveredRequest.newBuilder()
+                .setSenderNodeId(senderNodeId)
+                .addAllMessageIds(messageIds)
+                .build();
+    }
+
+    public static BroadcastRequest buildBroadcastRequest(long broadcastId, int senderNodeId, String message,
+                                                         Collection<Integer> members, int fanOut) {
+        return BroadcastRequest.newBuilder()
+                .setBroadcastId(broadcastId)
+                .setSenderId(senderNodeId)
+                .setMessage(message)
+                .addAllMembers(members)
+                .setFanOut(fanOut)
+                .build();
+    }
+
+    public static PingRequest buildPingRequest(int senderNodeId, Collection<MembershipUpdate> updates) {
+        return PingRequest.newBuilder()
+                .setSenderNodeId(senderNodeId)
+                .addAllUpdates(updates)
+                .build();
+    }
+
+    public static PingReqRequest buildPingReqRequest(int senderNodeId, com.dsva.model.Address target,
+                                                     Collection<MembershipUpdate> updates) {
+        return PingReqRequest.newBuilder()
+                .setSenderNodeId(senderNodeId)
+                .setTarget(ProtoModelBuilder.buildProtoAddress(target.port(), target.nodeId(), target.hostname()))
+                .addAllUpdates(updates)
                 .build();
     }
 
@@ -24,27 +75,69 @@ public class RequestBuilder {
                 .build();
     }
 
-    public static UpdateTopologyRequest buildUpdateTopologyRequest(AvailableNodesAddressesList availableNodesAddressesList) {
+    public static UpdateTopologyRequest buildUpdateTopologyRequest(AvailableNodesAddressesList availableNodesAddressesList,
+                                                                   long epoch, int leaderId, long term) {
         return UpdateTopologyRequest.newBuilder()
                 .setAvailableNodesAddressesList(availableNodesAddressesList)
+                .setEpoch(epoch)
+                .setLeaderId(leaderId)
+                .setTerm(term)
                 .build();
     }
 
+    public static TopologyDeltaRequest buildTopologyDeltaRequest(long epoch, int leaderId, long term,
+                                                                 Collection<com.dsva.model.Address> addedNodes,
+                                                                 Collection<Integer> removedNodeIds) {
+        TopologyDeltaRequest.Builder request = TopologyDeltaRequest.newBuilder()
+                .setEpoch(epoch)
+                .setLeaderId(leaderId)
+                .setTerm(term)
+                .addAllRemovedNodeIds(removedNodeIds);
+        addedNodes.forEach(address -> request.addAddedNodes(
+                ProtoModelBuilder.buildProtoAddress(address.port(), address.nodeId(), address.hostname())));
+        return request.build();
+    }
+
     public static AliveRequest buildAliveRequest(int senderNodeId) {
         return AliveRequest.newBuilder()
                 .setSenderNodeID(senderNodeId)
                 .build();
     }
 
-    public static LeaderAnnouncementRequest buildLeaderAnnouncementRequest(int leaderId) {
+    public static HeartbeatRequest buildHeartbeatRequest(int senderNodeId, String hostname, long term, boolean leader) {
+        return HeartbeatRequest.newBuilder()
+                .setSenderNodeId(senderNodeId)
+                .setHostname(hostname)
+                .setTerm(term)
+                .setLeader(leader)
+                .build();
+    }
+
+    public static LeaderAnnouncementRequest buildLeaderAnnouncementRequest(int leaderId, String hostname, long term) {
         return LeaderAnnouncementRequest.newBuilder()
                 .setLeaderId(leaderId)
+                .setHostname(hostname)
+                .setTerm(term)
                 .build();
     }
 
-    public static ElectionRequest buildElectionRequest(int candidateNodeId) {
+    public static ElectionRequest buildElectionRequest(int candidateNodeId, long round) {
         return ElectionRequest.newBuilder()
                 .setNodeId(candidateNodeId)
+                .setRound(round)
+                .build();
+    }
+
+    public static GrantLeadershipRequest buildGrantLeadershipRequest(int initiatorNodeId, long round) {
+        return GrantLeadershipRequest.newBuilder()
+                .setInitiatorId(initiatorNodeId)
+                .setRound(round)
+                .build();
+    }
+
+    public static StatsRequest buildStatsRequest(int senderNodeId) {
+        return StatsRequest.newBuilder()
+                .setSenderNodeId(senderNodeId)
                 .build();
     }
 
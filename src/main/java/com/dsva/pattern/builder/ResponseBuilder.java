@@ -1,17 +1,31 @@
 package com.dsva.pattern.builder;
 
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.model.DeliveryStatus;
 import com.proto.chat_bully.*;
 
+import java.util.Collection;
+
 public class ResponseBuilder {
     private ResponseBuilder() { throw new UnsupportedOperationException(); }
 
     public static JoinResponse buildJoinResponse(boolean ack,
                                            com.proto.chat_bully.Address protoLeader,
-                                           AvailableNodesAddressesList availableNodesAddressesList ) {
+                                           AvailableNodesAddressesList availableNodesAddressesList,
+                                           long epoch, long term) {
         return JoinResponse.newBuilder()
                 .setAck(ack)
                 .setLeader(protoLeader)
                 .setAvailableNodesAddressesList(availableNodesAddressesList)
+                .setEpoch(epoch)
+                .setTerm(term)
+                .build();
+    }
+
+    public static JoinResponse buildJoinRedirectResponse(com.proto.chat_bully.Address protoLeader) {
+        return JoinResponse.newBuilder()
+                .setAck(false)
+                .setLeader(protoLeader)
                 .build();
     }
 
@@ -21,18 +35,67 @@ public class ResponseBuilder {
                 .build();
     }
 
-    public static MessageResponse buildMessageResponse(boolean ack) {
+    public static MessageResponse buildMessageResponse(DeliveryStatus status) {
         return MessageResponse.newBuilder()
+                .setAck(status.isSuccessful())
+                .setAccepted(status == DeliveryStatus.ACCEPTED)
+                .build();
+    }
+
+    public static MarkDeliveredResponse buildMarkDeliveredResponse(boolean ack) {
+        return MarkDeliveredResponse.newBuilder()
                 .setAck(ack)
                 .build();
     }
 
+    public static BroadcastResponse buildBroadcastResponse(boolean ack, int reachedNodes) {
+        return BroadcastResponse.newBuilder()
+                .setAck(ack)
+                .setReachedNodes(reachedNodes)
+                .build();
+    }
+
+    public static PingResponse buildPingResponse(boolean ack, Collection<MembershipUpdate> updates) {
+        return PingResponse.newBuilder()
+                .setAck(ack)
+                .addAllUpdates(updates)
+                .build();
+    }
+
     public static AliveResponse buildALiveResponse(boolean ack) {
         return AliveResponse.newBuilder()
                 .setAck(ack)
                 .build();
     }
 
+    public static HeartbeatResponse buildHeartbeatResponse(boolean ack, long term) {
+        return HeartbeatResponse.newBuilder()
+                .setAck(ack)
+                .setTerm(term)
+                .build();
+    }
+
+    public static ElectionResponse buildElectionResponse(boolean ack) {
+        return ElectionResponse.newBuilder()
+                .setAck(ack)
+                .build();
+    }
+
+    public static ElectionResponse buildLeaseHeldElectionResponse(int leaseHolderId, long term) {
+        return ElectionResponse.newBuilder()
+                .setAck(false)
+                .setLeaseHeld(true)
+                .setLeaseHolderId(leaseHolderId)
+                .setTerm(term)
+                .build();
+    }
+
+    public static GrantLeadershipResponse buildGrantLeadershipResponse(boolean ack) {
+        return GrantLeadershipResponse.newBuilder()
+                .setAck(ack)
+                .build();
+    }
+
     public static LeaderAnnouncementResponse buildLeaderAnnouncementResponse(boolean ack) {
         return LeaderAnnouncementResponse.newBuilder()
                 .setAck(ack)
@@ -50,4 +113,29 @@ public class ResponseBuilder {
                 .setAck(ack)
                 .build();
     }
+
+    public static TopologyDeltaResponse buildTopologyDeltaResponse(boolean ack, long epoch, boolean snapshotRequired) {
+        return TopologyDeltaResponse.newBuilder()
+                .setAck(ack)
+                .setEpoch(epoch)
+                .setSnapshotRequired(snapshotRequired)
+                .build();
+    }
+
+    public static StatsResponse buildStatsResponse(int nodeId, MetricsRegistry metricsRegistry) {
+        StatsResponse.Builder response = StatsResponse.newBuilder()
+                .setNodeId(nodeId)
+                .putAllCounters(metricsRegistry.getCounters())
+                .putAllGauges(metricsRegistry.getGauges());
+        metricsRegistry.getHistograms().forEach((name, histogram) -> response.addHistograms(HistogramStats.newBuilder()
+                .setName(name)
+                .setCount(histogram.getCount())
+                .setMean(histogram.getMean())
+                .setP50(histogram.getPercentile(50))
+                .setP90(histogram.getPercentile(90))
+                .setP99(histogram.getPercentile(99))
+                .setMax(histogram.getMax())
+                .build()));
+        return response.build();
+    }
 }
@@ -0,0 +1,21 @@
+package com.dsva.pattern.command;
+
+import com.dsva.Node;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class BroadcastCommandHandler implements CommandHandler {
+
+    @Override
+    public void handle(String[] arguments, Node node) {
+        String message = String.join(" ", arguments).trim();
+        if (message.isEmpty()) {
+            log.warn("Message is blank or empty. Please write something! :)");
+            return;
+        }
+
+        int topologySize = node.getClient().getMyNeighbours().getKnownNodes().size() + 1;
+        int reachedNodes = node.getClient().broadcast(message).join();
+        System.out.println("Broadcast delivered to " + reachedNodes + " of " + topologySize + " nodes.");
+    }
+}
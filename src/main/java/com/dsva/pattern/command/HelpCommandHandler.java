@@ -14,7 +14,10 @@ public class HelpCommandHandler implements CommandHandler {
         System.out.println(colorBlue + bold + "? - " + reset + colorYellow + "this help" + reset);
         System.out.println(colorBlue + bold + "send - " + reset + colorYellow + "send message to Next neighbour" + reset);
         System.out.println(colorBlue + bold + "send <target node id> <message> - " + reset + colorYellow + "send a specific message to a specific node" + reset);
+        System.out.println(colorBlue + bold + "broadcast <message> - " + reset + colorYellow + "send a message to every node in the topology" + reset);
         System.out.println(colorBlue + bold + "status - " + reset + colorYellow + "print this node status. Status includes network topology" + reset);
+        System.out.println(colorBlue + bold + "stats - " + reset + colorYellow + "print metrics of this node" + reset);
+        System.out.println(colorBlue + bold + "stats <target node id> - " + reset + colorYellow + "print metrics of another node" + reset);
         System.out.println(colorBlue + bold + "quit - " + reset + colorYellow + "quit the current topology **with** notifying" + reset);
         System.out.println(colorBlue + bold + "quit --force - " + reset + colorYellow + "quit **without** notifying" + reset);
 
@@ -0,0 +1,48 @@
+package com.dsva.pattern.command;
+
+import com.dsva.Node;
+import com.dsva.exception.NodeNotFoundException;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.proto.chat_bully.HistogramStats;
+import com.proto.chat_bully.StatsResponse;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+@Slf4j
+public class StatsCommandHandler implements CommandHandler {
+
+    @Override
+    public void handle(String[] arguments, Node node) {
+        if (arguments.length == 0) {
+            printStats(ResponseBuilder.buildStatsResponse(node.getNodeId(), node.getMetricsRegistry()));
+            return;
+        }
+
+        try {
+            printStats(node.getClient().fetchStats(Integer.parseInt(arguments[0])));
+        } catch (NumberFormatException e) {
+            log.error("Node ID should be number! Try again!");
+        } catch (NodeNotFoundException e) {
+            System.out.println("Node " + arguments[0] + " is not part of this topology. Print status to see available nodes.");
+        } catch (StatusRuntimeException e) {
+            log.error("Cannot fetch stats from node {}: {}", arguments[0], e.getStatus());
+        }
+    }
+
+    private void printStats(StatsResponse stats) {
+        System.out.printf("Stats of node %d%n", stats.getNodeId());
+        stats.getCountersMap().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(counter -> System.out.printf("  %-40s %d%n", counter.getKey(), counter.getValue()));
+        stats.getGaugesMap().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(gauge -> System.out.printf("  %-40s %d%n", gauge.getKey(), gauge.getValue()));
+        for (HistogramStats histogram : stats.getHistogramsList()) {
+            System.out.printf("  %-40s count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d%n", histogram.getName(),
+                    histogram.getCount(), histogram.getMean(), histogram.getP50(), histogram.getP90(),
+                    histogram.getP99(), histogram.getMax());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.dsva.server;
+
+import com.dsva.model.Constants;
+import com.dsva.model.DeliveryStatus;
+import com.proto.chat_bully.MessageRequest;
+import com.proto.chat_bully.MessageStreamAck;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Slf4j
+public class MessageStreamObserver implements StreamObserver<MessageRequest> {
+
+    private final StreamObserver<MessageStreamAck> responseObserver;
+    private final Function<MessageRequest, CompletableFuture<DeliveryStatus>> messageHandler;
+    private final ScheduledExecutorService flushScheduler;
+    private MessageStreamAck.Builder pendingAcks = MessageStreamAck.newBuilder();
+    private int pendingAcksCount;
+    private int inFlightMessagesCount;
+    private boolean flushScheduled;
+    private boolean halfClosed;
+    private boolean completed;
+
+    public MessageStreamObserver(StreamObserver<MessageStreamAck> responseObserver,
+                                 Function<MessageRequest, CompletableFuture<DeliveryStatus>> messageHandler,
+                                 ScheduledExecutorService flushScheduler) {
+        this.responseObserver = responseObserver;
+        this.messageHandler = messageHandler;
+        this.flushScheduler = flushScheduler;
+    }
+
+    @Override
+    public void onNext(MessageRequest request) {
+        long sequence = request.getSequence();
+        synchronized (this) {
+            inFlightMessagesCount++;
+        }
+        CompletableFuture<DeliveryStatus> handling;
+        try {
+            handling = messageHandler.apply(request);
+        } catch (RuntimeException e) {
+            log.warn("Handling of streamed message {} failed: {}", sequence, e.toString());
+            handling = CompletableFuture.completedFuture(DeliveryStatus.FAILED);
+        }
+        handling.whenComplete((status, t) -> recordAck(sequence, status == null ? DeliveryStatus.FAILED : status));
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        log.debug("Incoming message stream terminated: {}", t.toString());
+        completed = true;
+    }
+
+    @Override
+    public synchronized void onCompleted() {
+        halfClosed = true;
+        completeIfDrained();
+    }
+
+    private synchronized void recordAck(long sequence, DeliveryStatus status) {
+        switch (status) {
+            case DELIVERED -> pendingAcks.addAckedSequences(sequence);
+            case ACCEPTED -> pendingAcks.addAcceptedSequences(sequence);
+            case FAILED -> pendingAcks.addFailedSequences(sequence);
+        }
+        pendingAcksCount++;
+        inFlightMessagesCount--;
+
+        if (halfClosed) {
+            completeIfDrained();
+        } else if (pendingAcksCount >= Constants.STREAM_ACK_BATCH_SIZE) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            flushScheduler.schedule(this::scheduledFlush, Constants.STREAM_ACK_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void completeIfDrained() {
+        if (inFlightMessagesCount > 0 || completed) {
+            return;
+        }
+        flush();
+        completed = true;
+        responseObserver.onCompleted();
+    }
+
+    private synchronized void scheduledFlush() {
+        flushScheduled = false;
+        flush();
+    }
+
+    private synchronized void flush() {
+        if (pendingAcksCount == 0 || completed) {
+            return;
+        }
+        responseObserver.onNext(pendingAcks.build());
+        pendingAcks = MessageStreamAck.newBuilder();
+        pendingAcksCount = 0;
+    }
+}
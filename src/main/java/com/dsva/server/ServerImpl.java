@@ -1,39 +1,73 @@
 package com.dsva.server;
 
 import com.dsva.Node;
-import com.dsva.exception.NodeNotFoundException;
+import com.dsva.metrics.MetricNames;
 import com.dsva.model.Address;
 import com.dsva.model.Constants;
+import com.dsva.model.DSNeighbours;
+import com.dsva.model.DeliveryStatus;
 import com.dsva.model.NodeState;
+import com.dsva.pattern.builder.RequestBuilder;
 import com.dsva.pattern.builder.ResponseBuilder;
 import com.dsva.service.TopologyService;
+import com.dsva.util.ExecutorFactory;
+import com.dsva.util.LogRateLimiter;
 import com.dsva.util.Utils;
+import com.dsva.wal.LoggedMessage;
+import com.dsva.wal.MessageLog;
 import com.proto.chat_bully.*;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+
 @Slf4j
 @RequiredArgsConstructor
 public class ServerImpl extends NodeGrpc.NodeImplBase {
 
     private final Node myNode;
     private final TopologyService topologyService;
+    private final ScheduledExecutorService streamAckScheduler = ExecutorFactory.newScheduledExecutor("stream-ack");
+    private final LogRateLimiter receivedMessagesLogLimiter = new LogRateLimiter(Constants.HOT_PATH_LOGS_PER_SECOND);
+
+    public void shutdown() {
+        streamAckScheduler.shutdownNow();
+    }
 
     @Override
     public void sendMessage(MessageRequest request, StreamObserver<MessageResponse> responseObserver) {
+        replyWhenComplete(processMessage(request).thenApply(ResponseBuilder::buildMessageResponse), responseObserver,
+                ResponseBuilder.buildMessageResponse(DeliveryStatus.FAILED), "SendMessage");
+    }
+
+    @Override
+    public StreamObserver<MessageRequest> messageStream(StreamObserver<MessageStreamAck> responseObserver) {
+        return new MessageStreamObserver(responseObserver, this::processMessage, streamAckScheduler);
+    }
+
+    private CompletableFuture<DeliveryStatus> processMessage(MessageRequest request) {
         if (myNode.isLeader() && request.getReceiverId() != myNode.getNodeId()) {
-            try {
-                myNode.getClient().distributeMessage(request.getReceiverId(), request.getSenderId(), request.getMessage());
-            } catch (NodeNotFoundException e) {
-                Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildMessageResponse(false));
-                return;
-            }
-        } else {
-            log.info("Received message from Node ID: {} to Node ID {}. Content: '{}'", request.getSenderId(),
-                    request.getReceiverId(), request.getMessage());
+            return myNode.getClient().distributeMessage(request);
+        }
+        if (request.getLeaderTerm() > 0
+                && !myNode.getClient().getMyNeighbours().isTermCurrent(request.getRelayerId(), request.getLeaderTerm())) {
+            log.warn("Rejecting message relayed by node {} with stale term {}", request.getRelayerId(), request.getLeaderTerm());
+            myNode.getMetricsRegistry().increment(MetricNames.LEASE_REJECTED_RELAYS);
+            return CompletableFuture.completedFuture(DeliveryStatus.FAILED);
         }
-        Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildMessageResponse(true));
+        if (!myNode.getClient().getDeliveredMessageIds().markSeen(request.getMessageId())) {
+            myNode.getMetricsRegistry().increment(MetricNames.DUPLICATE_MESSAGES);
+            return CompletableFuture.completedFuture(DeliveryStatus.DELIVERED);
+        }
+        if (receivedMessagesLogLimiter.tryAcquire()) {
+            log.info("Received message from Node ID: {} to Node ID {}. Content: '{}' ({} messages not logged)",
+                    request.getSenderId(), request.getReceiverId(), request.getMessage(),
+                    receivedMessagesLogLimiter.drainSuppressed());
+        }
+        return CompletableFuture.completedFuture(DeliveryStatus.DELIVERED);
     }
 
     @Override
@@ -44,24 +78,26 @@ public class ServerImpl extends NodeGrpc.NodeImplBase {
             return;
         }
 
-        int candidateId = request.getNodeId();
-        log.info("Received ElectionRequest from candidate: {}", candidateId);
-        boolean isCandidateIdHigher = candidateId >= myNode.getNodeId();
-        ElectionResponse electionResponse = ElectionResponse.newBuilder()
-                .setAck(isCandidateIdHigher)
-                .build();
-
-        Utils.sendAcknowledgment(responseObserver, electionResponse);
+        log.info("Received ElectionRequest from candidate: {} in round {}", request.getNodeId(), request.getRound());
+        myNode.getClient().getElectionScheduler().observeRound(request.getRound());
+        Utils.sendAcknowledgment(responseObserver, myNode.getClient().handleElectionRequest(request));
+    }
 
-        if (!isCandidateIdHigher) {
-            log.info("My ID is higher than candidate's. I stop his election and take charge.");
-            myNode.getClient().initiateElection();
-        }
+    @Override
+    public void grantLeadership(GrantLeadershipRequest request, StreamObserver<GrantLeadershipResponse> responseObserver) {
+        Utils.sendAcknowledgment(responseObserver, myNode.getClient().acceptLeadershipGrant(request));
     }
 
     @Override
     public void announceLeader(LeaderAnnouncementRequest request, StreamObserver<LeaderAnnouncementResponse> responseObserver) {
         log.info("Got announce leader request! Setting a new leader...");
+        DSNeighbours myNeighbours = myNode.getClient().getMyNeighbours();
+        if (!myNeighbours.renewLease(request.getLeaderId(), request.getTerm())) {
+            log.warn("Rejecting leadership of node {} for stale term {} (current term {})", request.getLeaderId(),
+                    request.getTerm(), myNeighbours.getLeaderTerm());
+            Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildLeaderAnnouncementResponse(false));
+            return;
+        }
         int leaderPort = Constants.DEFAULT_PORT + request.getLeaderId();
 
         Address leaderAddress = new Address(
@@ -70,8 +106,9 @@ public class ServerImpl extends NodeGrpc.NodeImplBase {
                 request.getLeaderId()
         );
 
-        myNode.getClient().getMyNeighbours().setLeaderAddress(leaderAddress);
-        log.info("New leader with ID: {}, on port: {}", request.getLeaderId(), leaderPort);
+        myNeighbours.setLeaderAddress(leaderAddress);
+        myNode.getClient().onLeaderAnnounced(request.getLeaderId());
+        log.info("New leader with ID: {}, on port: {}, term {}", request.getLeaderId(), leaderPort, request.getTerm());
         Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildLeaderAnnouncementResponse(true));
     }
 
@@ -82,6 +119,59 @@ public class ServerImpl extends NodeGrpc.NodeImplBase {
     }
 
 
+    @Override
+    public void heartbeat(HeartbeatRequest request, StreamObserver<HeartbeatResponse> responseObserver) {
+        DSNeighbours myNeighbours = myNode.getClient().getMyNeighbours();
+        long myTerm = myNeighbours.getLeaderTerm();
+        boolean leaseGranted = request.getLeader() && myNeighbours.renewLease(request.getSenderNodeId(), request.getTerm());
+        if (myNode.isLeader() && (leaseGranted || request.getTerm() > myTerm)) {
+            myNode.getClient().stepDown(request.getTerm());
+        }
+        if (!request.getLeader()) {
+            myNode.getClient().getHeartbeatService().onHeartbeatReceived(request.getSenderNodeId());
+            topologyService.readmitHeartbeatSender(request);
+        }
+        Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildHeartbeatResponse(
+                myNode.getNodeState() != NodeState.QUITING, myNeighbours.getLeaderTerm()));
+    }
+
+    @Override
+    public void getStats(StatsRequest request, StreamObserver<StatsResponse> responseObserver) {
+        Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildStatsResponse(myNode.getNodeId(), myNode.getMetricsRegistry()));
+    }
+
+    @Override
+    public void fetchUndelivered(FetchUndeliveredRequest request, StreamObserver<MessageRequest> responseObserver) {
+        List<LoggedMessage> undeliveredMessages = myNode.getClient().getMessageLog().getUndeliveredMessages();
+        log.info("Node {} fetched {} undelivered messages", request.getLeaderId(), undeliveredMessages.size());
+        undeliveredMessages.forEach(message -> responseObserver.onNext(RequestBuilder.buildMessageRequest(message)));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void markDelivered(MarkDeliveredRequest request, StreamObserver<MarkDeliveredResponse> responseObserver) {
+        MessageLog messageLog = myNode.getClient().getMessageLog();
+        request.getMessageIdsList().forEach(messageLog::markDelivered);
+        Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildMarkDeliveredResponse(true));
+    }
+
+    @Override
+    public void ping(PingRequest request, StreamObserver<PingResponse> responseObserver) {
+        Utils.sendAcknowledgment(responseObserver, myNode.getClient().getMembershipService().handlePing(request));
+    }
+
+    @Override
+    public void pingReq(PingReqRequest request, StreamObserver<PingResponse> responseObserver) {
+        replyWhenComplete(myNode.getClient().getMembershipService().handlePingReq(request), responseObserver,
+                ResponseBuilder.buildPingResponse(false, List.of()), "PingReq");
+    }
+
+    @Override
+    public void broadcast(BroadcastRequest request, StreamObserver<BroadcastResponse> responseObserver) {
+        replyWhenComplete(myNode.getClient().getBroadcastService().handleBroadcast(request), responseObserver,
+                ResponseBuilder.buildBroadcastResponse(false, 0), "Broadcast");
+    }
+
     @Override
     public void join(JoinRequest request, StreamObserver<JoinResponse> responseObserver) {
         topologyService.joinTopology(request, responseObserver);
@@ -89,13 +179,25 @@ public class ServerImpl extends NodeGrpc.NodeImplBase {
 
     @Override
     public void updateTopology(UpdateTopologyRequest request, StreamObserver<UpdateTopologyResponse> responseObserver) {
-        log.info("Received update topology request from node id: {}",
+        log.debug("Received update topology request from node id: {}",
                 myNode.getClient().getMyNeighbours().getLeaderAddress().nodeId());
         if (this.myNode.isLeader()) {
+            Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildUpdateTopologyResponse(false));
+            return;
+        }
+
+        topologyService.updateTopology(request, responseObserver);
+    }
+
+    @Override
+    public void applyTopologyDelta(TopologyDeltaRequest request, StreamObserver<TopologyDeltaResponse> responseObserver) {
+        if (this.myNode.isLeader()) {
+            Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildTopologyDeltaResponse(false,
+                    myNode.getClient().getMyNeighbours().getTopologyEpoch(), false));
             return;
         }
 
-        topologyService.updateTopology(request.getAvailableNodesAddressesList(), responseObserver);
+        topologyService.applyTopologyDelta(request, responseObserver);
     }
 
     @Override
@@ -103,4 +205,18 @@ public class ServerImpl extends NodeGrpc.NodeImplBase {
         log.info("Received QuitTopologyRequest.");
         topologyService.removeNodeFromTopology(request, responseObserver);
     }
-}
\ No newline at end of file
+
+    /**
+     * Answers with the given negative response when the asynchronous handling fails, so the caller does not wait for
+     * its deadline.
+     */
+    private <T> void replyWhenComplete(CompletableFuture<T> response, StreamObserver<T> responseObserver, T failedResponse,
+                                       String rpcName) {
+        response.whenComplete((result, e) -> {
+            if (e != null) {
+                log.warn("{} request failed: {}", rpcName, e.toString());
+            }
+            Utils.sendAcknowledgment(responseObserver, e == null ? result : failedResponse);
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.dsva.service;
+
+import com.dsva.Node;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.metrics.MetricNames;
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.DSNeighbours;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.dsva.util.LogRateLimiter;
+import com.dsva.wal.RecentMessageIds;
+import com.proto.chat_bully.BroadcastRequest;
+import com.proto.chat_bully.BroadcastResponse;
+import com.proto.chat_bully.NodeGrpc;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Disseminates one-to-all messages along a k-ary tree. The originator puts itself at the root of the member list
+ * carried by the request; the member at index i forwards to the members at indices k*i+1 .. k*i+k, so every node
+ * sends at most k messages and a broadcast reaches N nodes in about log_k(N) hops.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BroadcastService {
+    private final Node myNode;
+    private final DSNeighbours myNeighbours;
+    private final ChannelRegistry channelRegistry;
+    private final RecentMessageIds deliveredBroadcastIds = new RecentMessageIds(Constants.DELIVERED_MESSAGE_IDS_CAPACITY);
+    private final LogRateLimiter deliveredLogLimiter = new LogRateLimiter(Constants.HOT_PATH_LOGS_PER_SECOND);
+
+    /**
+     * Completes with the number of nodes, including this one, that delivered the broadcast.
+     */
+    public CompletableFuture<Integer> broadcast(String message) {
+        List<Integer> members = new ArrayList<>();
+        members.add(myNode.getNodeId());
+        myNeighbours.getSnapshot().getAddresses().forEach(address -> members.add(address.nodeId()));
+        BroadcastRequest request = RequestBuilder.buildBroadcastRequest(myNode.getClient().getMessageLog().nextMessageId(),
+                myNode.getNodeId(), message, members, computeFanOut(members.size()));
+        myNode.getMetricsRegistry().increment(MetricNames.BROADCASTS_SENT);
+        log.debug("Broadcasting {} to {} nodes with fan-out {}", request.getBroadcastId(), members.size(), request.getFanOut());
+        return handleBroadcast(request).thenApply(BroadcastResponse::getReachedNodes);
+    }
+
+    public CompletableFuture<BroadcastResponse> handleBroadcast(BroadcastRequest request) {
+        if (!deliveredBroadcastIds.markSeen(request.getBroadcastId())) {
+            myNode.getMetricsRegistry().increment(MetricNames.BROADCAST_DUPLICATES);
+            return CompletableFuture.completedFuture(ResponseBuilder.buildBroadcastResponse(true, 0));
+        }
+        deliver(request);
+        int myIndex = request.getMembersList().indexOf(myNode.getNodeId());
+        if (myIndex < 0) {
+            log.warn("Node {} is not a member of broadcast {}, not forwarding it", myNode.getNodeId(), request.getBroadcastId());
+            return CompletableFuture.completedFuture(ResponseBuilder.buildBroadcastResponse(true, 1));
+        }
+        return forwardToChildren(request, myIndex)
+                .thenApply(reachedNodes -> ResponseBuilder.buildBroadcastResponse(true, reachedNodes + 1));
+    }
+
+    private void deliver(BroadcastRequest request) {
+        myNode.getMetricsRegistry().increment(MetricNames.BROADCASTS_DELIVERED);
+        if (deliveredLogLimiter.tryAcquire()) {
+            log.info("Received broadcast from Node ID: {}. Content: '{}' ({} broadcasts not logged)",
+                    request.getSenderId(), request.getMessage(), deliveredLogLimiter.drainSuppressed());
+        }
+    }
+
+    private CompletableFuture<Integer> forwardToChildren(BroadcastRequest request, int index) {
+        List<CompletableFuture<Integer>> subtrees = new ArrayList<>(request.getFanOut());
+        long firstChild = (long) index * request.getFanOut() + 1;
+        for (long child = firstChild; child < firstChild + request.getFanOut() && child < request.getMembersCount(); child++) {
+            subtrees.add(forwardToSubtree(request, (int) child));
+        }
+        return CompletableFuture.allOf(subtrees.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> subtrees.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    /**
+     * Sends the broadcast to the member at the given index. When that member is unknown here or does not answer,
+     * its children are adopted so the rest of its subtree is still reached.
+     */
+    private CompletableFuture<Integer> forwardToSubtree(BroadcastRequest request, int index) {
+        Address address = myNeighbours.getSnapshot().get(request.getMembers(index));
+        if (address == null) {
+            return adoptSubtree(request, index);
+        }
+        int depth = subtreeDepth(index, request.getMembersCount(), request.getFanOut());
+        return send(address, request, depth)
+                .handle((response, e) -> e == null && response.getAck()
+                        ? CompletableFuture.completedFuture(response.getReachedNodes())
+                        : adoptSubtree(request, index))
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<Integer> adoptSubtree(BroadcastRequest request, int index) {
+        log.debug("Adopting the broadcast subtree of node {}", request.getMembers(index));
+        myNode.getMetricsRegistry().increment(MetricNames.BROADCAST_ADOPTED_SUBTREES);
+        return forwardToChildren(request, index);
+    }
+
+    private CompletableFuture<BroadcastResponse> send(Address address, BroadcastRequest request, int depth) {
+        CompletableFuture<BroadcastResponse> response = new CompletableFuture<>();
+        long timeout = channelRegistry.getTimeout(address, TimeoutKind.RELAY) * depth;
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(address))
+                .withDeadlineAfter(timeout, TimeUnit.MILLISECONDS);
+        myNode.getMetricsRegistry().increment(MetricNames.BROADCASTS_FORWARDED);
+
+        stub.broadcast(request, new StreamObserver<>() {
+            @Override
+            public void onNext(BroadcastResponse broadcastResponse) {
+                response.complete(broadcastResponse);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Broadcast to node {} failed: {}", address.nodeId(), t.toString());
+                response.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Response is already completed in onNext.
+            }
+        });
+        return response;
+    }
+
+    private static int computeFanOut(int clusterSize) {
+        if (Constants.BROADCAST_FAN_OUT > 0) {
+            return Constants.BROADCAST_FAN_OUT;
+        }
+        return Math.max(2, 32 - Integer.numberOfLeadingZeros(clusterSize - 1));
+    }
+
+    private static int subtreeDepth(int index, int size, int fanOut) {
+        int depth = 0;
+        for (long first = index; first < size; first = first * fanOut + 1) {
+            depth++;
+        }
+        return depth;
+    }
+}
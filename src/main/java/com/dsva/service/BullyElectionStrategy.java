@@ -0,0 +1,77 @@
+package com.dsva.service;
+
+import com.dsva.Node;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.model.Address;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.proto.chat_bully.ElectionRequest;
+import com.proto.chat_bully.ElectionResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Classic bully: every higher node that answers starts its own election, so an election costs O(N^2) messages in
+ * the worst case.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BullyElectionStrategy implements ElectionStrategy {
+    private final LeaderElectionService leaderElectionService;
+    private final Node myNode;
+    private final ChannelRegistry channelRegistry;
+
+    @Override
+    public boolean runElection(long round, int attempt, List<Address> higherNodes) throws InterruptedException {
+        CompletableFuture<Integer> coordinatorAnnouncement = leaderElectionService.expectLeaderAnnouncement();
+        List<Integer> higherNodeIds = higherNodes.stream().map(Address::nodeId).toList();
+        long answerTimeout = channelRegistry.getRttTracker().getTimeout(higherNodeIds, TimeoutKind.ELECTION_ANSWER);
+        long coordinatorTimeout = channelRegistry.getRttTracker().getTimeout(higherNodeIds, TimeoutKind.COORDINATOR_WAIT);
+        CountDownLatch latch = new CountDownLatch(higherNodes.size());
+        AtomicBoolean higherNodeFound = new AtomicBoolean(false);
+
+        for (Address nodeAddress : higherNodes) {
+            leaderElectionService.sendElectionRequest(nodeAddress, round).thenAccept(alive -> {
+                if (Boolean.TRUE.equals(alive)) {
+                    higherNodeFound.set(true);
+                }
+                latch.countDown();
+            });
+        }
+
+        if (!latch.await(answerTimeout, TimeUnit.MILLISECONDS)) {
+            log.warn("Not every higher node answered within {} ms in round {}", answerTimeout, round);
+        }
+        if (coordinatorAnnouncement.isDone()) {
+            log.info("A leader was established while collecting the answers of round {}", round);
+            return true;
+        }
+        if (!higherNodeFound.get()) {
+            leaderElectionService.becomeLeader();
+            return true;
+        }
+
+        log.info("Waiting up to {} ms for a higher node to announce leadership (round {}, attempt {})",
+                coordinatorTimeout, round, attempt);
+        return leaderElectionService.awaitLeaderAnnouncement(coordinatorAnnouncement, coordinatorTimeout, round, attempt);
+    }
+
+    @Override
+    public ElectionResponse handleElectionRequest(ElectionRequest request) {
+        if (myNode.getClient().isLeaderLeaseProtected()) {
+            return leaderElectionService.buildLeaseHeldResponse();
+        }
+        boolean isCandidateIdHigher = request.getNodeId() >= myNode.getNodeId();
+        if (!isCandidateIdHigher) {
+            log.info("My ID is higher than candidate's. I stop his election and take charge.");
+            myNode.getClient().initiateElection();
+        }
+        return ResponseBuilder.buildElectionResponse(isCandidateIdHigher);
+    }
+}
@@ -55,7 +55,9 @@ public class ConsoleHandlerService implements Runnable {
     private void initializeCommands() {
         commandHandlers.put("?", new HelpCommandHandler());
         commandHandlers.put("send", new SendClientMessageCommandHandler());
+        commandHandlers.put("broadcast", new BroadcastCommandHandler());
         commandHandlers.put("status", new StatusCommandHandler());
+        commandHandlers.put("stats", new StatsCommandHandler());
         commandHandlers.put("quit", new QuitCommandHandler());
     }
 
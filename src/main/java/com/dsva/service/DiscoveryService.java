@@ -0,0 +1,131 @@
+package com.dsva.service;
+
+import com.dsva.client.ChannelRegistry;
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.util.Utils;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.proto.chat_bully.JoinRequest;
+import com.proto.chat_bully.JoinResponse;
+import com.proto.chat_bully.NodeGrpc;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@RequiredArgsConstructor
+public class DiscoveryService {
+    private final Address myAddress;
+    private final ChannelRegistry channelRegistry;
+
+    public Optional<JoinResponse> discover(Collection<Address> candidates) {
+        JoinRequest request = RequestBuilder.buildJoinRequest(myAddress.port(), myAddress.nodeId(), myAddress.hostname());
+        Probes probes = new Probes(request);
+        candidates.stream()
+                .filter(address -> address.nodeId() != myAddress.nodeId())
+                .forEach(probes::probe);
+        probes.allIssued();
+
+        try {
+            return Optional.ofNullable(probes.winner.get(Constants.DISCOVERY_TIMEOUT, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Discovery was interrupted", e);
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("No node answered the join request within {} ms", Constants.DISCOVERY_TIMEOUT);
+            return Optional.empty();
+        } finally {
+            probes.cancelOutstanding();
+        }
+    }
+
+    public static List<Address> buildSeedAddresses(String seeds) {
+        return Utils.parseNodeIds(seeds).stream()
+                .map(nodeId -> new Address(Constants.HOSTNAME, Utils.getNodePortFromNodeId(nodeId), nodeId))
+                .toList();
+    }
+
+    private final class Probes {
+        private final JoinRequest request;
+        private final CompletableFuture<JoinResponse> winner = new CompletableFuture<>();
+        private final Set<Integer> probedNodeIds = ConcurrentHashMap.newKeySet();
+        private final List<ListenableFuture<JoinResponse>> outstanding = new CopyOnWriteArrayList<>();
+        // Starts at one so that the probe set cannot drain before every seed has been issued.
+        private final AtomicInteger pendingProbes = new AtomicInteger(1);
+
+        private Probes(JoinRequest request) {
+            this.request = request;
+        }
+
+        private void probe(Address address) {
+            if (winner.isDone() || !probedNodeIds.add(address.nodeId())) {
+                return;
+            }
+            pendingProbes.incrementAndGet();
+            log.debug("Probing node {} for the current topology", address.nodeId());
+            ListenableFuture<JoinResponse> response = NodeGrpc.newFutureStub(channelRegistry.getChannel(address))
+                    .withDeadlineAfter(channelRegistry.getTimeout(address, TimeoutKind.JOIN), TimeUnit.MILLISECONDS)
+                    .join(request);
+            outstanding.add(response);
+            Futures.addCallback(response, new FutureCallback<>() {
+                @Override
+                public void onSuccess(JoinResponse joinResponse) {
+                    onProbeResponse(address, joinResponse);
+                    probeFinished();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if (!winner.isDone()) {
+                        log.debug("Cannot connect to node {}: {}", address.nodeId(), t.toString());
+                        channelRegistry.evict(address);
+                    }
+                    probeFinished();
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        private void onProbeResponse(Address address, JoinResponse joinResponse) {
+            if (joinResponse.getAck()) {
+                log.info("Node {} accepted the join request", address.nodeId());
+                winner.complete(joinResponse);
+            } else if (joinResponse.hasLeader() && joinResponse.getLeader().getNodeId() != myAddress.nodeId()) {
+                log.info("Node {} redirected the join request to leader {}", address.nodeId(), joinResponse.getLeader().getNodeId());
+                probe(Utils.convertProtoModelToModelAddress(joinResponse.getLeader()));
+            } else {
+                log.info("Node {} responded with false ack", address.nodeId());
+            }
+        }
+
+        private void allIssued() {
+            probeFinished();
+        }
+
+        private void probeFinished() {
+            if (pendingProbes.decrementAndGet() == 0) {
+                winner.complete(null);
+            }
+        }
+
+        private void cancelOutstanding() {
+            outstanding.forEach(response -> response.cancel(true));
+        }
+    }
+}
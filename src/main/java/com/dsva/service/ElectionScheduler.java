@@ -0,0 +1,108 @@
+package com.dsva.service;
+
+import com.dsva.model.Constants;
+import com.dsva.util.ExecutorFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@RequiredArgsConstructor
+public class ElectionScheduler {
+    private static final int MAX_RETRY_EXPONENT = 6;
+    private final LeaderElectionService leaderElectionService;
+    private final ScheduledExecutorService electionExecutor = ExecutorFactory.newScheduledExecutor("election");
+    private final AtomicReference<CompletableFuture<Long>> currentElection =
+            new AtomicReference<>(CompletableFuture.completedFuture(0L));
+    private final AtomicLong electionRound = new AtomicLong();
+    private final AtomicLong triggeredElections = new AtomicLong();
+    private final AtomicLong coalescedTriggers = new AtomicLong();
+    private final AtomicLong executedElections = new AtomicLong();
+    private final AtomicInteger failedRounds = new AtomicInteger();
+
+    public CompletableFuture<Long> requestElection() {
+        triggeredElections.incrementAndGet();
+        while (true) {
+            CompletableFuture<Long> runningElection = currentElection.get();
+            if (!runningElection.isDone()) {
+                coalescedTriggers.incrementAndGet();
+                log.debug("Election is already running, joining it");
+                return runningElection;
+            }
+
+            CompletableFuture<Long> nextElection = new CompletableFuture<>();
+            if (currentElection.compareAndSet(runningElection, nextElection)) {
+                long round = electionRound.incrementAndGet();
+                electionExecutor.execute(() -> runElection(round, nextElection));
+                return nextElection;
+            }
+        }
+    }
+
+    public void observeRound(long round) {
+        electionRound.accumulateAndGet(round, Math::max);
+    }
+
+    public long getCurrentRound() {
+        return electionRound.get();
+    }
+
+    public long getTriggeredElections() {
+        return triggeredElections.get();
+    }
+
+    public long getCoalescedTriggers() {
+        return coalescedTriggers.get();
+    }
+
+    public long getExecutedElections() {
+        return executedElections.get();
+    }
+
+    public void execute(Runnable task) {
+        electionExecutor.execute(task);
+    }
+
+    public void shutdown() {
+        electionExecutor.shutdownNow();
+    }
+
+    private void runElection(long round, CompletableFuture<Long> election) {
+        executedElections.incrementAndGet();
+        try {
+            log.info("Starting election round {}", round);
+            if (leaderElectionService.initiateElection(round)) {
+                failedRounds.set(0);
+            } else {
+                scheduleRetry(round);
+            }
+            election.complete(round);
+        } catch (Exception e) {
+            log.error("Election round {} failed: {}", round, e.toString());
+            election.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A round without a leader is retried with an exponentially growing delay, so that a cluster which lost every
+     * candidate at once keeps looking for a leader without flooding the nodes that come back.
+     */
+    private void scheduleRetry(long round) {
+        int failures = failedRounds.incrementAndGet();
+        long delay = Math.min(Constants.ELECTION_MAX_RETRY_DELAY,
+                Constants.ELECTION_RETRY_DELAY << Math.min(failures - 1, MAX_RETRY_EXPONENT));
+        log.warn("Retrying the election of round {} in {} ms ({} failed round(s) in a row)", round, delay, failures);
+        try {
+            electionExecutor.schedule(this::requestElection, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.debug("Election executor is shut down, not retrying round {}", round);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.dsva.service;
+
+import com.dsva.model.Address;
+import com.proto.chat_bully.ElectionRequest;
+import com.proto.chat_bully.ElectionResponse;
+
+import java.util.List;
+
+/**
+ * How a node that is not the highest known one finds the new leader, and how it answers other candidates.
+ * Selected with the dsva.election property.
+ */
+public interface ElectionStrategy {
+
+    /**
+     * Runs one election attempt against the known higher nodes. Returns true when a leader was established.
+     */
+    boolean runElection(long round, int attempt, List<Address> higherNodes) throws InterruptedException;
+
+    ElectionResponse handleElectionRequest(ElectionRequest request);
+
+    /**
+     * Called when a leader announced itself or this node was granted the leadership.
+     */
+    default void onLeaderEstablished(int leaderId) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.dsva.service;
+
+import com.dsva.Node;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.exception.NodeNotFoundException;
+import com.dsva.metrics.MetricNames;
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.DSNeighbours;
+import com.dsva.model.HeartbeatHistory;
+import com.dsva.model.NodeState;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.util.ExecutorFactory;
+import com.proto.chat_bully.HeartbeatRequest;
+import com.proto.chat_bully.HeartbeatResponse;
+import com.proto.chat_bully.NodeGrpc;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@RequiredArgsConstructor
+public class HeartbeatService {
+    private final Node myNode;
+    private final DSNeighbours myNeighbours;
+    private final ChannelRegistry channelRegistry;
+    @Setter private TopologyService topologyService;
+    private final ConcurrentHashMap<Integer, HeartbeatHistory> heartbeatHistories = new ConcurrentHashMap<>();
+    private final Set<Integer> suspectedNodes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Integer, Long> joiningNodes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeatExecutor = ExecutorFactory.newScheduledExecutor("heartbeat");
+
+    public void start() {
+        heartbeatExecutor.scheduleAtFixedRate(this::runHeartbeatRound,
+                Constants.HEARTBEAT_INTERVAL, Constants.HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+        log.info("Heartbeats started with interval {} ms", Constants.HEARTBEAT_INTERVAL);
+    }
+
+    public void stop() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    public CompletableFuture<Boolean> probe(int targetNodeId) {
+        try {
+            return sendHeartbeat(myNeighbours.getTargetNodeAddress(targetNodeId));
+        } catch (NodeNotFoundException e) {
+            log.error(e.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+    }
+
+    public void recordHeartbeat(int nodeId) {
+        long now = System.currentTimeMillis();
+        heartbeatHistories.computeIfAbsent(nodeId, id -> new HeartbeatHistory(Constants.HEARTBEAT_HISTORY_SIZE, now))
+                .recordArrival(now);
+        if (suspectedNodes.remove(nodeId)) {
+            log.info("Node {} is responding again and is no longer suspected", nodeId);
+        }
+        myNode.getClient().getMailboxService().onNodeReachable(nodeId);
+    }
+
+    /**
+     * A node that just joined may not serve requests yet, so the leader starts monitoring it only after its first
+     * heartbeat arrived, or after the discovery timeout.
+     */
+    public void awaitFirstHeartbeat(int nodeId) {
+        joiningNodes.put(nodeId, System.currentTimeMillis() + Constants.DISCOVERY_TIMEOUT);
+    }
+
+    public void onHeartbeatReceived(int senderNodeId) {
+        joiningNodes.remove(senderNodeId);
+    }
+
+    public double getPhi(int nodeId) {
+        HeartbeatHistory heartbeatHistory = heartbeatHistories.get(nodeId);
+        if (heartbeatHistory == null) {
+            return 0;
+        }
+        return heartbeatHistory.phi(System.currentTimeMillis(), Constants.HEARTBEAT_INTERVAL,
+                Constants.MIN_HEARTBEAT_STD_DEVIATION);
+    }
+
+    public boolean isSuspected(int nodeId) {
+        return suspectedNodes.contains(nodeId);
+    }
+
+    private void runHeartbeatRound() {
+        try {
+            Collection<Address> monitoredNodes = getMonitoredNodes();
+            long now = System.currentTimeMillis();
+            if (myNode.isLeader()) {
+                renewOwnLease(monitoredNodes, now);
+            }
+            for (Address address : monitoredNodes) {
+                heartbeatHistories.computeIfAbsent(address.nodeId(),
+                        id -> new HeartbeatHistory(Constants.HEARTBEAT_HISTORY_SIZE, now));
+                sendHeartbeat(address);
+            }
+            evaluateSuspicion(monitoredNodes);
+        } catch (Exception e) {
+            log.error("Heartbeat round failed: {}", e.toString());
+        }
+    }
+
+    private Collection<Address> getMonitoredNodes() {
+        if (myNode.isLeader()) {
+            long now = System.currentTimeMillis();
+            joiningNodes.values().removeIf(monitoredFrom -> monitoredFrom <= now);
+            return myNeighbours.getSnapshot().getAddresses().stream()
+                    .filter(address -> !joiningNodes.containsKey(address.nodeId()))
+                    .toList();
+        }
+        Address leaderAddress = myNeighbours.getLeaderAddress();
+        if (leaderAddress == null || leaderAddress.nodeId() == myNode.getNodeId()
+                || myNode.getNodeState() == NodeState.QUITING) {
+            return List.of();
+        }
+        return List.of(leaderAddress);
+    }
+
+    /**
+     * The leader keeps its own lease only while a majority of the cluster answered its heartbeats recently, so a
+     * leader cut off from the rest stops relaying once the followers' leases may have expired.
+     */
+    private void renewOwnLease(Collection<Address> monitoredNodes, long now) {
+        long leaseStart = now - Constants.LEADER_LEASE_DURATION;
+        long reachableNodes = 1 + monitoredNodes.stream()
+                .map(address -> heartbeatHistories.get(address.nodeId()))
+                .filter(history -> history == null || history.getLastArrivalMillis() >= leaseStart)
+                .count();
+        if (2 * reachableNodes > monitoredNodes.size() + 1) {
+            myNeighbours.renewLease(myNode.getNodeId(), myNeighbours.getLeaderTerm());
+        } else if (myNeighbours.isLeaseHeldBy(myNode.getNodeId())) {
+            log.warn("Only {} of {} nodes answered heartbeats, leader lease is not renewed", reachableNodes,
+                    monitoredNodes.size() + 1);
+        }
+    }
+
+    private void evaluateSuspicion(Collection<Address> monitoredNodes) {
+        for (Address address : monitoredNodes) {
+            double phi = getPhi(address.nodeId());
+            if (phi > Constants.PHI_SUSPICION_THRESHOLD && suspectedNodes.add(address.nodeId())) {
+                log.warn("Node {} is suspected to have failed (phi = {})", address.nodeId(), String.format("%.2f", phi));
+                myNode.getMetricsRegistry().increment(MetricNames.SUSPECTED_NODES);
+                topologyService.handleSuspectedNode(address.nodeId());
+            }
+        }
+        heartbeatHistories.keySet().removeIf(nodeId -> monitoredNodes.stream().noneMatch(address -> address.nodeId() == nodeId));
+        suspectedNodes.removeIf(nodeId -> !heartbeatHistories.containsKey(nodeId));
+    }
+
+    private CompletableFuture<Boolean> sendHeartbeat(Address address) {
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(address))
+                .withDeadlineAfter(channelRegistry.getTimeout(address, TimeoutKind.HEARTBEAT), TimeUnit.MILLISECONDS);
+        HeartbeatRequest request = RequestBuilder.buildHeartbeatRequest(myNode.getNodeId(),
+                myNode.getClient().getMyAddress().hostname(), myNeighbours.getLeaderTerm(),
+                myNode.isLeader());
+
+        stub.heartbeat(request, new StreamObserver<>() {
+            @Override
+            public void onNext(HeartbeatResponse response) {
+                if (response.getAck()) {
+                    recordHeartbeat(address.nodeId());
+                }
+                if (response.getTerm() > myNeighbours.getLeaderTerm()) {
+                    myNode.getClient().stepDown(response.getTerm());
+                }
+                myNode.getMetricsRegistry().increment(response.getAck()
+                        ? MetricNames.HEARTBEAT_SUCCESSES : MetricNames.HEARTBEAT_FAILURES);
+                acknowledgment.complete(response.getAck());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Heartbeat to node {} failed: {}", address.nodeId(), t.toString());
+                myNode.getMetricsRegistry().increment(MetricNames.HEARTBEAT_FAILURES);
+                acknowledgment.complete(false);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Acknowledgment is already completed in onNext.
+            }
+        });
+        return acknowledgment;
+    }
+}
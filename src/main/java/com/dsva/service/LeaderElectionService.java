@@ -1,105 +1,226 @@
 package com.dsva.service;
 
 import com.dsva.Node;
-import com.dsva.exception.NodeNotFoundException;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.metrics.MetricNames;
+import com.dsva.metrics.MetricsRegistry;
 import com.dsva.model.Address;
 import com.dsva.model.Constants;
 import com.dsva.model.DSNeighbours;
+import com.dsva.model.FanOutResult;
+import com.dsva.model.TimeoutKind;
 import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.pattern.builder.ResponseBuilder;
 import com.dsva.util.Utils;
 import com.proto.chat_bully.*;
-import io.grpc.ManagedChannel;
-import io.grpc.StatusRuntimeException;
-import io.grpc.netty.shaded.io.netty.util.internal.shaded.org.jctools.queues.MessagePassingQueue;
 import io.grpc.stub.StreamObserver;
-import lombok.RequiredArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.HashSet;
-import java.util.concurrent.CountDownLatch;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
-@RequiredArgsConstructor
 public class LeaderElectionService {
     private final DSNeighbours myNeighbours;
     private final Node myNode;
+    private final ChannelRegistry channelRegistry;
+    private final ElectionStrategy electionStrategy;
+    @Setter private TopologyService topologyService;
+    private volatile CompletableFuture<Integer> leaderAnnouncement = new CompletableFuture<>();
+    @Getter private volatile long lastElectionDurationMillis;
+    @Getter private volatile long lastElectionMessages;
+    @Getter private volatile long lastElectionBytes;
 
-    public void initiateElection() {
+    public LeaderElectionService(DSNeighbours myNeighbours, Node myNode, ChannelRegistry channelRegistry) {
+        this.myNeighbours = myNeighbours;
+        this.myNode = myNode;
+        this.channelRegistry = channelRegistry;
+        this.electionStrategy = switch (Constants.ELECTION_ALGORITHM) {
+            case BULLY -> new BullyElectionStrategy(this, myNode, channelRegistry);
+            case MODIFIED_BULLY -> new ModifiedBullyElectionStrategy(this, myNode, channelRegistry);
+        };
+    }
+
+    /**
+     * Returns false when every attempt of the round ended without a leader.
+     */
+    public boolean initiateElection(long round) {
+        if (isLeaderLeaseProtected()) {
+            log.info("Node {} holds a valid lease for term {}, skipping election round {}",
+                    myNeighbours.getLeaseHolderId(), myNeighbours.getLeaderTerm(), round);
+            myNode.getMetricsRegistry().increment(MetricNames.ELECTIONS_SUPPRESSED);
+            return true;
+        }
+        MetricsRegistry metricsRegistry = myNode.getMetricsRegistry();
+        long messagesBefore = metricsRegistry.counter(MetricNames.ELECTION_MESSAGES).sum();
+        long bytesBefore = metricsRegistry.counter(MetricNames.ELECTION_BYTES).sum();
+        long electionStart = System.nanoTime();
+        int attempt = 0;
+        boolean electionFinished = false;
+
+        try {
+            while (!electionFinished && attempt < Constants.MAX_ELECTION_ATTEMPTS) {
+                attempt++;
+                electionFinished = runElectionAttempt(round, attempt);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Election process was interrupted", e);
+        }
+
+        lastElectionDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - electionStart);
+        lastElectionMessages = metricsRegistry.counter(MetricNames.ELECTION_MESSAGES).sum() - messagesBefore;
+        lastElectionBytes = metricsRegistry.counter(MetricNames.ELECTION_BYTES).sum() - bytesBefore;
+        metricsRegistry.record(MetricNames.ELECTION_DURATION, lastElectionDurationMillis);
+        metricsRegistry.record(MetricNames.ELECTION_MESSAGES_PER_ELECTION, lastElectionMessages);
+        metricsRegistry.record(MetricNames.ELECTION_BYTES_PER_ELECTION, lastElectionBytes);
+        metricsRegistry.increment(electionFinished ? MetricNames.ELECTIONS_COMPLETED : MetricNames.ELECTIONS_FAILED);
+        if (electionFinished) {
+            log.info("Election round {} finished in {} ms after {} attempt(s), {} messages ({} bytes). Leader: {}", round,
+                    lastElectionDurationMillis, attempt, lastElectionMessages, lastElectionBytes,
+                    myNeighbours.getLeaderAddress().nodeId());
+        } else {
+            log.error("Election round {} ended after {} attempts and {} ms without a new leader", round,
+                    attempt, lastElectionDurationMillis);
+        }
+        return electionFinished;
+    }
+
+    public void onLeaderAnnounced(int leaderId) {
+        leaderAnnouncement.complete(leaderId);
+        electionStrategy.onLeaderEstablished(leaderId);
+    }
+
+    public void onLeadershipGranted() {
+        electionStrategy.onLeaderEstablished(myNode.getNodeId());
+    }
+
+    /**
+     * A healthy leader keeps its lease renewed through heartbeats. While that lease is valid and the holder is not
+     * suspected, an election would only replace a working leader.
+     */
+    public boolean isLeaderLeaseProtected() {
+        int leaseHolderId = myNeighbours.getLeaseHolderId();
+        return leaseHolderId != myNode.getNodeId()
+                && myNeighbours.isLeaseValid()
+                && !myNode.getClient().getHeartbeatService().isSuspected(leaseHolderId);
+    }
+
+    private boolean runElectionAttempt(long round, int attempt) throws InterruptedException {
         if (myNode.isLeader()) {
-            return;
+            return true;
+        }
+        if (isLeaderLeaseProtected()) {
+            log.info("Node {} was granted a lease during election round {}", myNeighbours.getLeaseHolderId(), round);
+            return true;
         }
 
-        HashSet<Address> higherNodes = myNeighbours.getHigherNodes(myNode.getNodeId());
+        List<Address> higherNodes = myNeighbours.getHigherNodes(myNode.getNodeId());
 
         if (higherNodes.isEmpty()) {
             becomeLeader();
-            return;
+            return true;
         }
 
-        CountDownLatch latch = new CountDownLatch(higherNodes.size());
-        AtomicBoolean higherNodeFound = new AtomicBoolean(false);
+        return electionStrategy.runElection(round, attempt, higherNodes);
+    }
 
-        for (Address nodeAddress : higherNodes) {
-            sendLeaderElectionMessage(nodeAddress.nodeId(), alive -> {
-                if (Boolean.TRUE.equals(alive)) {
-                    higherNodeFound.set(true);
-                }
-                latch.countDown();
-            });
-        }
+    public ElectionResponse handleElectionRequest(ElectionRequest request) {
+        return electionStrategy.handleElectionRequest(request);
+    }
 
-        try {
-            latch.await();
-            if (!higherNodeFound.get()) {
-                becomeLeader();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Election process was interrupted", e);
-        }
+    /**
+     * Tells the candidate which leader still holds a valid lease, so that it can follow that leader instead of
+     * waiting for a coordinator that will never be announced.
+     */
+    public ElectionResponse buildLeaseHeldResponse() {
+        int leaseHolderId = myNeighbours.getLeaseHolderId();
+        long term = myNeighbours.getLeaderTerm();
+        log.info("Node {} still holds a valid lease for term {}, not taking part in the election", leaseHolderId, term);
+        return ResponseBuilder.buildLeaseHeldElectionResponse(leaseHolderId, term);
+    }
+
+    /**
+     * Replaces the announcement future, so that the caller waits only for an announcement of the current attempt.
+     */
+    public CompletableFuture<Integer> expectLeaderAnnouncement() {
+        CompletableFuture<Integer> announcement = new CompletableFuture<>();
+        leaderAnnouncement = announcement;
+        return announcement;
     }
 
-    private void sendLeaderElectionMessage(int targetNodeId, MessagePassingQueue.Consumer<Boolean> onResult) {
-        int targetNodePort;
-        String hostname;
+    public boolean awaitLeaderAnnouncement(CompletableFuture<Integer> announcement, long timeout, long round, int attempt)
+            throws InterruptedException {
         try {
-            Address targetAddress = myNeighbours.getTargetNodeAddress(targetNodeId);
-            targetNodePort = targetAddress.port();
-            hostname = targetAddress.hostname();
-        } catch (NodeNotFoundException e) {
-            log.error(e.getMessage());
-            return;
+            int leaderId = announcement.get(timeout, TimeUnit.MILLISECONDS);
+            log.info("Node {} announced leadership in round {}", leaderId, round);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("No leader was announced in round {} attempt {}. Re-running the election", round, attempt);
+            return false;
         }
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodePort, hostname);
-        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channel)
-                .withDeadlineAfter(Constants.MAX_ACCEPTABLE_DELAY, TimeUnit.MILLISECONDS); // TODO ms
-        ElectionRequest electionRequest = RequestBuilder.buildElectionRequest(myNode.getNodeId());
+    }
+
+    /**
+     * Completes with true when the target answered that it is alive and takes over the election. When the target
+     * reports a leader with a valid lease, that leader is adopted and the current announcement is completed.
+     */
+    public CompletableFuture<Boolean> sendElectionRequest(Address targetAddress, long round) {
+        CompletableFuture<Boolean> higherNodeAlive = new CompletableFuture<>();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(targetAddress))
+                .withDeadlineAfter(channelRegistry.getTimeout(targetAddress, TimeoutKind.ELECTION_ANSWER), TimeUnit.MILLISECONDS);
+        ElectionRequest electionRequest = RequestBuilder.buildElectionRequest(myNode.getNodeId(), round);
 
         stub.startElection(electionRequest, new StreamObserver<>() {
             @Override
             public void onNext(ElectionResponse electionResponse) {
-                if (electionResponse.getAck()) {
-                    log.info("I have higher node id: {} that target node: {}. I can continue election process", myNode.getNodeId(), targetNodeId);
-                    onResult.accept(false);
+                if (electionResponse.getLeaseHeld()) {
+                    adoptLeaseHolder(electionResponse.getLeaseHolderId(), electionResponse.getTerm(), targetAddress.nodeId());
+                    higherNodeAlive.complete(false);
+                } else if (electionResponse.getAck()) {
+                    log.info("I have higher node id: {} that target node: {}. I can continue election process", myNode.getNodeId(), targetAddress.nodeId());
+                    higherNodeAlive.complete(false);
                 } else {
-                    log.info("There is a node with a higher id than me! I need to stop leader election.");
-                    onResult.accept(true);
+                    log.info("Node {} has a higher id than me and answered the election", targetAddress.nodeId());
+                    higherNodeAlive.complete(true);
                 }
             }
 
             @Override
             public void onError(Throwable t) {
-                log.error("Error during leader election process to node:{}, error: {}", targetNodeId, t.toString());
-                onResult.accept(false);
+                log.error("Error during leader election process to node:{}, error: {}", targetAddress.nodeId(), t.toString());
+                higherNodeAlive.complete(false);
             }
 
             @Override
             public void onCompleted() {
-                channel.shutdown();
+                // Channel is pooled by the registry and stays open for further calls.
             }
         });
+        return higherNodeAlive;
+    }
+
+    private void adoptLeaseHolder(int leaseHolderId, long term, int reportingNodeId) {
+        Address leaderAddress = myNeighbours.getKnownNodes().get(leaseHolderId);
+        if (leaseHolderId == myNode.getNodeId() || leaderAddress == null) {
+            log.warn("Node {} reported a lease of unknown node {}, ignoring it", reportingNodeId, leaseHolderId);
+            return;
+        }
+        if (!myNeighbours.renewLease(leaseHolderId, term)) {
+            log.info("Node {} reported a lease of node {} for stale term {}", reportingNodeId, leaseHolderId, term);
+            return;
+        }
+        log.info("Node {} reported that node {} holds a valid lease for term {}, following it", reportingNodeId,
+                leaseHolderId, term);
+        myNeighbours.setLeaderAddress(leaderAddress);
+        myNode.getClient().onLeaderAnnounced(leaseHolderId);
     }
 
     public void becomeLeader() {
@@ -107,45 +228,69 @@ public class LeaderElectionService {
             return;
         }
         myNode.setLeader(true);
-        announceLeadership();
+        long term = myNeighbours.startLeaderTerm(myNode.getNodeId());
+        log.info("Starting leader term {}", term);
+        FanOutResult announcementResult = announceLeadership(term);
         myNeighbours.removeNode(myNeighbours.getLeaderAddress().nodeId());
         myNeighbours.setLeaderAddress(myNode.getClient().getMyAddress());
         log.info("Your node  became a leader!");
-        log.info(myNeighbours.toString());
+        log.debug("{}", myNeighbours);
+
+        if (!announcementResult.failedNodes().isEmpty()) {
+            log.warn("Nodes {} did not answer the leadership announcement in time", announcementResult.failedNodes());
+        }
+        topologyService.handleNodeFailures(announcementResult.failedNodes());
+        topologyService.publishFullTopology();
+        myNode.getClient().replayUndeliveredMessages();
     }
 
-    private void announceLeadership() {
+    private FanOutResult announceLeadership(long term) {
         log.info("Announcing leadership");
         if (myNeighbours.getKnownNodes().size() == 0) {
             log.info("No node is available to announce a leadership.");
         }
+
+        LeaderAnnouncementRequest request = RequestBuilder.buildLeaderAnnouncementRequest(myNode.getNodeId(),
+                myNode.getClient().getMyAddress().hostname(), term);
+        Map<Integer, CompletableFuture<Boolean>> announcements = new HashMap<>();
         for (Address address : myNeighbours.getKnownNodes().values()) {
             if (address.nodeId() != myNode.getNodeId()) {
-                announceLeadershipToNode(address);
+                announcements.put(address.nodeId(), announceLeadershipToNode(address, request));
             }
         }
+
+        FanOutResult result = Utils.awaitFanOut(announcements,
+                channelRegistry.getRttTracker().getTimeout(announcements.keySet(), TimeoutKind.ELECTION_ANSWER));
+        log.info("Leadership announcement acknowledged by {}, rejected by {}, failed for {}",
+                result.acknowledgedNodes(), result.rejectedNodes(), result.failedNodes());
+        return result;
     }
 
-    private void announceLeadershipToNode(Address address) {
-        int targetNodePort = Utils.getNodePortFromNodeId(address.nodeId());
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodePort, address.hostname());
-        try {
-            NodeGrpc.NodeBlockingStub stub = NodeGrpc.newBlockingStub(channel);
-            LeaderAnnouncementRequest request = RequestBuilder.buildLeaderAnnouncementRequest(myNode.getNodeId());
-            LeaderAnnouncementResponse response = stub.announceLeader(request);
-
-            if (response.getAck()) {
-                log.info("Node {} acknowledged your leadership", address.nodeId());
-            } else {
-                log.warn("Node {} did not acknowledge your leadership", address.nodeId());
+    private CompletableFuture<Boolean> announceLeadershipToNode(Address address, LeaderAnnouncementRequest request) {
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(address))
+                .withDeadlineAfter(channelRegistry.getTimeout(address, TimeoutKind.ELECTION_ANSWER), TimeUnit.MILLISECONDS);
+
+        stub.announceLeader(request, new StreamObserver<>() {
+            @Override
+            public void onNext(LeaderAnnouncementResponse response) {
+                if (!response.getAck()) {
+                    log.warn("Node {} did not acknowledge your leadership", address.nodeId());
+                }
+                acknowledgment.complete(response.getAck());
             }
-        } catch (StatusRuntimeException e) {
-            log.error("gRPC error announcing leadership to node {}: {}", address.nodeId(), e.getStatus());
-        } catch (Exception e) {
-            log.error("Error announcing leadership to node {}: {}", address.nodeId(), e.getMessage());
-        } finally {
-            channel.shutdown();
-            Utils.awaitChannelTermination(channel);
-        }
+
+            @Override
+            public void onError(Throwable t) {
+                log.error("Error announcing leadership to node {}: {}", address.nodeId(), t.toString());
+                acknowledgment.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Acknowledgment is already completed in onNext.
+            }
+        });
+        return acknowledgment;
     }
 }
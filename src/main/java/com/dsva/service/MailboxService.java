@@ -0,0 +1,154 @@
+package com.dsva.service;
+
+import com.dsva.mailbox.HeldMessage;
+import com.dsva.mailbox.Mailbox;
+import com.dsva.metrics.MetricNames;
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.model.Constants;
+import com.dsva.model.DeliveryStatus;
+import com.dsva.util.ExecutorFactory;
+import com.proto.chat_bully.MessageRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Store-and-forward mailboxes kept by the leader for receivers that are temporarily unreachable. Held messages are
+ * drained in batches once a heartbeat or a join shows the receiver is back.
+ */
+@Slf4j
+public class MailboxService {
+    private final MetricsRegistry metricsRegistry;
+    private final Function<MessageRequest, CompletableFuture<DeliveryStatus>> relay;
+    private final BiConsumer<Integer, Collection<Long>> onDelivered;
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Set<Integer> drainingReceivers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService mailboxExecutor = ExecutorFactory.newScheduledExecutor("mailbox");
+
+    public MailboxService(MetricsRegistry metricsRegistry,
+                          Function<MessageRequest, CompletableFuture<DeliveryStatus>> relay,
+                          BiConsumer<Integer, Collection<Long>> onDelivered) {
+        this.metricsRegistry = metricsRegistry;
+        this.relay = relay;
+        this.onDelivered = onDelivered;
+        metricsRegistry.gauge(MetricNames.MAILBOX_PENDING, this::getPendingMessagesCount);
+        metricsRegistry.gauge(MetricNames.MAILBOX_OVERFLOW_BYTES, this::getOverflowBytes);
+        if (Constants.MAILBOX_ENABLED) {
+            mailboxExecutor.scheduleAtFixedRate(this::evictExpiredMessages,
+                    Constants.MAILBOX_SWEEP_INTERVAL, Constants.MAILBOX_SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean hasPendingMessages(int receiverNodeId) {
+        Mailbox mailbox = mailboxes.get(receiverNodeId);
+        return mailbox != null && mailbox.size() > 0;
+    }
+
+    /**
+     * Messages to a receiver with a non-empty mailbox are held as well, otherwise they would overtake older ones.
+     */
+    public boolean shouldHold(int receiverNodeId) {
+        return Constants.MAILBOX_ENABLED && (drainingReceivers.contains(receiverNodeId) || hasPendingMessages(receiverNodeId));
+    }
+
+    public DeliveryStatus hold(MessageRequest request) {
+        if (!Constants.MAILBOX_ENABLED) {
+            return DeliveryStatus.FAILED;
+        }
+        Mailbox mailbox = mailboxes.computeIfAbsent(request.getReceiverId(),
+                id -> new Mailbox(Constants.MAILBOX_RING_CAPACITY, Constants.MAILBOX_OVERFLOW_BYTES));
+        int evicted = mailbox.offer(new HeldMessage(request, System.currentTimeMillis()));
+        if (evicted < 0) {
+            metricsRegistry.increment(MetricNames.MAILBOX_REJECTED);
+            return DeliveryStatus.FAILED;
+        }
+        if (evicted > 0) {
+            metricsRegistry.counter(MetricNames.MAILBOX_EVICTED_BY_SIZE).add(evicted);
+            log.warn("Mailbox of node {} is full, evicted {} oldest messages", request.getReceiverId(), evicted);
+        }
+        metricsRegistry.increment(MetricNames.MAILBOX_HELD);
+        log.debug("Holding message {} for unreachable node {}", request.getMessageId(), request.getReceiverId());
+        return DeliveryStatus.ACCEPTED;
+    }
+
+    public void onNodeReachable(int nodeId) {
+        if (hasPendingMessages(nodeId) && drainingReceivers.add(nodeId)) {
+            log.info("Node {} is reachable, draining {} held messages", nodeId, mailboxes.get(nodeId).size());
+            mailboxExecutor.execute(() -> drainBatch(nodeId));
+        }
+    }
+
+    public long getPendingMessagesCount() {
+        return mailboxes.values().stream().mapToLong(Mailbox::size).sum();
+    }
+
+    public long getOverflowBytes() {
+        return mailboxes.values().stream().mapToLong(Mailbox::getOverflowBytes).sum();
+    }
+
+    public void stop() {
+        mailboxExecutor.shutdownNow();
+    }
+
+    private void drainBatch(int nodeId) {
+        Mailbox mailbox = mailboxes.get(nodeId);
+        List<HeldMessage> batch = mailbox == null ? List.of() : mailbox.pollBatch(Constants.MAILBOX_DRAIN_BATCH);
+        if (batch.isEmpty()) {
+            drainingReceivers.remove(nodeId);
+            return;
+        }
+        List<CompletableFuture<DeliveryStatus>> deliveries = batch.stream()
+                .map(heldMessage -> relay.apply(heldMessage.request()))
+                .toList();
+        CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+                .whenCompleteAsync((ignored, t) -> completeBatch(nodeId, mailbox, batch, deliveries), mailboxExecutor);
+    }
+
+    private void completeBatch(int nodeId, Mailbox mailbox, List<HeldMessage> batch,
+                               List<CompletableFuture<DeliveryStatus>> deliveries) {
+        List<HeldMessage> undelivered = new ArrayList<>();
+        Map<Integer, List<Long>> deliveredBySender = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            MessageRequest request = batch.get(i).request();
+            if (deliveries.get(i).getNow(DeliveryStatus.FAILED) == DeliveryStatus.DELIVERED) {
+                deliveredBySender.computeIfAbsent(request.getSenderId(), id -> new ArrayList<>()).add(request.getMessageId());
+            } else {
+                undelivered.add(batch.get(i));
+            }
+        }
+        deliveredBySender.forEach(onDelivered);
+        metricsRegistry.counter(MetricNames.MAILBOX_DRAINED).add(batch.size() - undelivered.size());
+        mailbox.completeBatch(batch.size(), undelivered);
+
+        if (undelivered.isEmpty()) {
+            drainBatch(nodeId);
+            return;
+        }
+        drainingReceivers.remove(nodeId);
+        log.warn("Node {} became unreachable again, {} messages stay in its mailbox", nodeId, mailbox.size());
+    }
+
+    private void evictExpiredMessages() {
+        long threshold = System.currentTimeMillis() - Constants.MAILBOX_RETENTION;
+        mailboxes.forEach((nodeId, mailbox) -> {
+            int evicted = mailbox.evictOlderThan(threshold);
+            if (evicted > 0) {
+                metricsRegistry.counter(MetricNames.MAILBOX_EVICTED_BY_AGE).add(evicted);
+                log.warn("Dropped {} messages held for node {} for longer than {} ms", evicted, nodeId,
+                        Constants.MAILBOX_RETENTION);
+            }
+        });
+        mailboxes.entrySet().removeIf(entry -> entry.getValue().size() == 0 && !drainingReceivers.contains(entry.getKey()));
+    }
+}
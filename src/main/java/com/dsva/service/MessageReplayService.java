@@ -0,0 +1,171 @@
+package com.dsva.service;
+
+import com.dsva.Node;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.exception.NodeNotFoundException;
+import com.dsva.metrics.MetricNames;
+import com.dsva.model.Address;
+import com.dsva.model.DSNeighbours;
+import com.dsva.model.DeliveryStatus;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.wal.MessageLog;
+import com.proto.chat_bully.MarkDeliveredResponse;
+import com.proto.chat_bully.MessageRequest;
+import com.proto.chat_bully.NodeGrpc;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pulls messages that were accepted but never acknowledged from every node's message log and relays them again.
+ * Runs on a freshly elected leader, so relays lost together with the previous leader are delivered after failover.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MessageReplayService {
+    private final Node myNode;
+    private final DSNeighbours myNeighbours;
+    private final ChannelRegistry channelRegistry;
+    private final MessageLog messageLog;
+
+    public CompletableFuture<Integer> replayUndeliveredMessages() {
+        long replayStart = System.nanoTime();
+        Map<Long, MessageRequest> undeliveredMessages = new ConcurrentHashMap<>();
+        Map<Long, Set<Integer>> messageHolders = new ConcurrentHashMap<>();
+        messageLog.getUndeliveredMessages().forEach(message -> collect(RequestBuilder.buildMessageRequest(message),
+                myNode.getNodeId(), undeliveredMessages, messageHolders));
+
+        Collection<Address> peers = myNeighbours.getSnapshot().getAddresses();
+        CompletableFuture<?>[] fetches = peers.stream()
+                .map(address -> fetchUndelivered(address, undeliveredMessages, messageHolders))
+                .toArray(CompletableFuture[]::new);
+
+        return CompletableFuture.allOf(fetches)
+                .thenCompose(ignored -> replay(undeliveredMessages.values(), messageHolders))
+                .whenComplete((replayed, t) -> {
+                    long replayDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayStart);
+                    myNode.getMetricsRegistry().record(MetricNames.WAL_REPLAY_DURATION, replayDuration);
+                    if (t != null) {
+                        log.error("Replay of undelivered messages failed: {}", t.toString());
+                    } else if (!undeliveredMessages.isEmpty()) {
+                        log.info("Replayed {} of {} undelivered messages from {} nodes in {} ms", replayed,
+                                undeliveredMessages.size(), peers.size() + 1, replayDuration);
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> fetchUndelivered(Address address, Map<Long, MessageRequest> undeliveredMessages,
+                                                     Map<Long, Set<Integer>> messageHolders) {
+        CompletableFuture<Void> fetched = new CompletableFuture<>();
+        NodeGrpc.newStub(channelRegistry.getChannel(address))
+                .withDeadlineAfter(channelRegistry.getTimeout(address, TimeoutKind.TOPOLOGY), TimeUnit.MILLISECONDS)
+                .fetchUndelivered(RequestBuilder.buildFetchUndeliveredRequest(myNode.getNodeId()), new StreamObserver<>() {
+                    @Override
+                    public void onNext(MessageRequest request) {
+                        collect(request, address.nodeId(), undeliveredMessages, messageHolders);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        log.warn("Cannot fetch undelivered messages from node {}: {}", address.nodeId(), t.toString());
+                        fetched.complete(null);
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        fetched.complete(null);
+                    }
+                });
+        return fetched;
+    }
+
+    private CompletableFuture<Integer> replay(Collection<MessageRequest> undeliveredMessages,
+                                              Map<Long, Set<Integer>> messageHolders) {
+        Map<Integer, Queue<Long>> deliveredByHolder = new ConcurrentHashMap<>();
+        AtomicInteger replayedCount = new AtomicInteger();
+        List<CompletableFuture<Void>> deliveries = undeliveredMessages.stream()
+                .sorted(Comparator.comparingLong(MessageRequest::getAcceptedAt))
+                .map(request -> deliver(request).thenAccept(status -> {
+                    if (status == DeliveryStatus.DELIVERED) {
+                        replayedCount.incrementAndGet();
+                        messageHolders.get(request.getMessageId()).forEach(holderId -> deliveredByHolder
+                                .computeIfAbsent(holderId, id -> new ConcurrentLinkedQueue<>())
+                                .add(request.getMessageId()));
+                    }
+                }))
+                .toList();
+
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            deliveredByHolder.forEach(this::acknowledgeDelivery);
+            myNode.getMetricsRegistry().counter(MetricNames.WAL_REPLAYED_MESSAGES).add(replayedCount.get());
+            return replayedCount.get();
+        });
+    }
+
+    /**
+     * Tells the node holding the given messages in its log that they reached their receivers.
+     */
+    public void acknowledgeDelivery(int holderId, Collection<Long> messageIds) {
+        if (holderId == myNode.getNodeId()) {
+            messageIds.forEach(messageLog::markDelivered);
+            return;
+        }
+        Address holderAddress;
+        try {
+            holderAddress = myNeighbours.getTargetNodeAddress(holderId);
+        } catch (NodeNotFoundException e) {
+            return;
+        }
+        sendMarkDelivered(holderAddress, messageIds);
+    }
+
+    private CompletableFuture<DeliveryStatus> deliver(MessageRequest request) {
+        if (request.getReceiverId() == myNode.getNodeId()) {
+            if (myNode.getClient().getDeliveredMessageIds().markSeen(request.getMessageId())) {
+                log.info("Recovered message from Node ID: {}. Content: '{}'", request.getSenderId(), request.getMessage());
+            }
+            return CompletableFuture.completedFuture(DeliveryStatus.DELIVERED);
+        }
+        return myNode.getClient().distributeMessage(request);
+    }
+
+    private void sendMarkDelivered(Address holderAddress, Collection<Long> messageIds) {
+        NodeGrpc.newStub(channelRegistry.getChannel(holderAddress))
+                .withDeadlineAfter(channelRegistry.getTimeout(holderAddress, TimeoutKind.TOPOLOGY), TimeUnit.MILLISECONDS)
+                .markDelivered(RequestBuilder.buildMarkDeliveredRequest(myNode.getNodeId(), messageIds), new StreamObserver<>() {
+                    @Override
+                    public void onNext(MarkDeliveredResponse response) {
+                        // Nothing to do, the holder compacts its log on its own.
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        log.debug("Cannot acknowledge delivered messages to node {}: {}", holderAddress.nodeId(), t.toString());
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        // Acknowledgment is fire and forget.
+                    }
+                });
+    }
+
+    private static void collect(MessageRequest request, int holderId, Map<Long, MessageRequest> undeliveredMessages,
+                                Map<Long, Set<Integer>> messageHolders) {
+        undeliveredMessages.putIfAbsent(request.getMessageId(), request);
+        messageHolders.computeIfAbsent(request.getMessageId(), id -> ConcurrentHashMap.newKeySet()).add(holderId);
+    }
+}
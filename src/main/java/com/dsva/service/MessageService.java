@@ -1,47 +1,91 @@
 package com.dsva.service;
 
+import com.dsva.client.ChannelRegistry;
+import com.dsva.client.MessageStream;
 import com.dsva.exception.NodeNotFoundException;
 import com.dsva.model.Address;
 import com.dsva.model.DSNeighbours;
-import com.dsva.pattern.builder.RequestBuilder;
-import com.dsva.util.Utils;
+import com.dsva.model.DeliveryStatus;
+import com.dsva.model.TimeoutKind;
 import com.proto.chat_bully.MessageRequest;
-import com.proto.chat_bully.MessageResponse;
-import com.proto.chat_bully.NodeGrpc;
-import io.grpc.ManagedChannel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Slf4j
 @RequiredArgsConstructor
 public class MessageService {
 
     private final DSNeighbours myNeighbours;
+    private final ChannelRegistry channelRegistry;
+    private final ConcurrentHashMap<Address, MessageStream> messageStreams = new ConcurrentHashMap<>();
 
-    public boolean sendGrpcMessage(int receiverNodeId, int senderNodeId, String message, boolean viaLeader) throws NodeNotFoundException {
-        int targetNodeId = viaLeader ? myNeighbours.getLeaderAddress().nodeId() : receiverNodeId;
-        Address targetNodeAddress = myNeighbours.getTargetNodeAddress(targetNodeId);
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodeAddress.port(), targetNodeAddress.hostname());
+    public DeliveryStatus sendGrpcMessage(MessageRequest request, boolean viaLeader) throws NodeNotFoundException {
+        Address targetNodeAddress = getTargetNodeAddress(request.getReceiverId(), viaLeader);
+        CompletableFuture<DeliveryStatus> messageAck = sendGrpcMessageAsync(request, viaLeader);
 
         try {
-            NodeGrpc.NodeBlockingStub stub = NodeGrpc.newBlockingStub(channel);
-            MessageRequest request = RequestBuilder.buildMessageRequest(message, senderNodeId, receiverNodeId);
-
-            MessageResponse messageResponse = stub.sendMessage(request);
-
-            if (messageResponse.getAck()) {
-                log.info("Node with id: {}, successfully received a message", receiverNodeId);
-                return true;
+            long timeout = getRelayTimeout(targetNodeAddress, viaLeader);
+            DeliveryStatus status = messageAck.get(timeout, TimeUnit.MILLISECONDS);
+            if (status == DeliveryStatus.DELIVERED) {
+                log.debug("Node with id: {}, successfully received a message", request.getReceiverId());
+            } else if (status == DeliveryStatus.ACCEPTED) {
+                log.info("Node {} is unreachable, the leader holds the message until it is back", request.getReceiverId());
             } else {
                 log.error("Message delivery failed or false ack received.");
-                return false;
             }
-        } catch (Exception e) {
-            log.error("Error sending gRPC message: {}", e.getMessage());
-            return false;
-        } finally {
-            channel.shutdown();
-            Utils.awaitChannelTermination(channel);
+            return status;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for message acknowledgment", e);
+            return DeliveryStatus.FAILED;
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Error sending gRPC message: {}", e.toString());
+            return DeliveryStatus.FAILED;
         }
     }
+
+    public CompletableFuture<DeliveryStatus> sendGrpcMessageAsync(MessageRequest request, boolean viaLeader) throws NodeNotFoundException {
+        Address targetNodeAddress = getTargetNodeAddress(request.getReceiverId(), viaLeader);
+        return getMessageStream(targetNodeAddress).send(request, getRelayTimeout(targetNodeAddress, viaLeader));
+    }
+
+    public Address getTargetNodeAddress(int receiverNodeId, boolean viaLeader) throws NodeNotFoundException {
+        int targetNodeId = viaLeader ? myNeighbours.getLeaderAddress().nodeId() : receiverNodeId;
+        return myNeighbours.getTargetNodeAddress(targetNodeId);
+    }
+
+    public long getPendingMessagesCount() {
+        long pendingMessagesCount = 0;
+        for (MessageStream messageStream : messageStreams.values()) {
+            pendingMessagesCount += messageStream.getPendingMessagesCount();
+        }
+        return pendingMessagesCount;
+    }
+
+    public void closeMessageStreams() {
+        messageStreams.values().forEach(MessageStream::close);
+        messageStreams.clear();
+    }
+
+    private MessageStream getMessageStream(Address targetNodeAddress) {
+        MessageStream messageStream = messageStreams.get(targetNodeAddress);
+        if (messageStream != null && !channelRegistry.touch(targetNodeAddress)) {
+            log.debug("Channel to node {} was evicted, reopening its message stream", targetNodeAddress.nodeId());
+            messageStreams.remove(targetNodeAddress, messageStream);
+            messageStream.close();
+        }
+        return messageStreams.computeIfAbsent(targetNodeAddress, address ->
+                new MessageStream(channelRegistry.getChannel(address), address, channelRegistry.getRttTracker(),
+                        closedStream -> messageStreams.remove(address, closedStream)));
+    }
+
+    private long getRelayTimeout(Address targetNodeAddress, boolean viaLeader) {
+        return channelRegistry.getTimeout(targetNodeAddress, viaLeader ? TimeoutKind.RELAY_END_TO_END : TimeoutKind.RELAY);
+    }
 }
@@ -0,0 +1,146 @@
+package com.dsva.service;
+
+import com.dsva.Node;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.client.RttTracker;
+import com.dsva.model.Address;
+import com.dsva.model.FanOutResult;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.dsva.util.Utils;
+import com.proto.chat_bully.ElectionRequest;
+import com.proto.chat_bully.ElectionResponse;
+import com.proto.chat_bully.GrantLeadershipResponse;
+import com.proto.chat_bully.NodeGrpc;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Modified bully: higher nodes only answer the initiator, which grants the leadership to the highest responder.
+ * Only that node announces, so an election costs O(N) messages. A node that answered runs its own election when
+ * neither a grant nor an announcement follows, in case the initiator crashed after collecting the answers.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ModifiedBullyElectionStrategy implements ElectionStrategy {
+    private final LeaderElectionService leaderElectionService;
+    private final Node myNode;
+    private final ChannelRegistry channelRegistry;
+    private final AtomicReference<CompletableFuture<Integer>> awaitedLeader =
+            new AtomicReference<>(CompletableFuture.completedFuture(null));
+
+    @Override
+    public boolean runElection(long round, int attempt, List<Address> higherNodes) throws InterruptedException {
+        CompletableFuture<Integer> coordinatorAnnouncement = leaderElectionService.expectLeaderAnnouncement();
+        List<Integer> higherNodeIds = higherNodes.stream().map(Address::nodeId).toList();
+        long answerTimeout = channelRegistry.getRttTracker().getTimeout(higherNodeIds, TimeoutKind.ELECTION_ANSWER);
+        long coordinatorTimeout = channelRegistry.getRttTracker().getTimeout(higherNodeIds, TimeoutKind.COORDINATOR_WAIT);
+
+        Map<Integer, CompletableFuture<Boolean>> answers = new HashMap<>();
+        for (Address nodeAddress : higherNodes) {
+            answers.put(nodeAddress.nodeId(), leaderElectionService.sendElectionRequest(nodeAddress, round));
+        }
+        FanOutResult result = Utils.awaitFanOut(answers, answerTimeout);
+        List<Address> responders = higherNodes.stream()
+                .filter(address -> result.acknowledgedNodes().contains(address.nodeId()))
+                .sorted(Comparator.comparingInt(Address::nodeId).reversed())
+                .toList();
+
+        if (coordinatorAnnouncement.isDone()) {
+            log.info("A leader was established while collecting the answers of round {}", round);
+            return true;
+        }
+        if (responders.isEmpty()) {
+            leaderElectionService.becomeLeader();
+            return true;
+        }
+        for (Address candidate : responders) {
+            if (Boolean.TRUE.equals(grantLeadership(candidate, round).join())) {
+                log.info("Granted leadership to node {}, waiting up to {} ms for its announcement (round {}, attempt {})",
+                        candidate.nodeId(), coordinatorTimeout, round, attempt);
+                return leaderElectionService.awaitLeaderAnnouncement(coordinatorAnnouncement, coordinatorTimeout,
+                        round, attempt);
+            }
+        }
+        log.warn("No higher node accepted the leadership in round {} attempt {}", round, attempt);
+        return false;
+    }
+
+    @Override
+    public ElectionResponse handleElectionRequest(ElectionRequest request) {
+        if (myNode.getClient().isLeaderLeaseProtected()) {
+            return leaderElectionService.buildLeaseHeldResponse();
+        }
+        boolean isCandidateIdHigher = request.getNodeId() >= myNode.getNodeId();
+        if (!isCandidateIdHigher) {
+            log.info("My ID is higher than candidate's. Waiting for node {} to grant me the leadership", request.getNodeId());
+            awaitLeader(request.getNodeId());
+        }
+        return ResponseBuilder.buildElectionResponse(isCandidateIdHigher);
+    }
+
+    @Override
+    public void onLeaderEstablished(int leaderId) {
+        awaitedLeader.get().complete(leaderId);
+    }
+
+    private void awaitLeader(int initiatorId) {
+        CompletableFuture<Integer> current = awaitedLeader.get();
+        if (!current.isDone()) {
+            return;
+        }
+        CompletableFuture<Integer> leader = new CompletableFuture<>();
+        if (!awaitedLeader.compareAndSet(current, leader)) {
+            return;
+        }
+        // The initiator first waits for the answers of all higher nodes and only then grants the leadership.
+        RttTracker rttTracker = channelRegistry.getRttTracker();
+        long timeout = rttTracker.getTimeout(initiatorId, TimeoutKind.ELECTION_ANSWER)
+                + rttTracker.getTimeout(initiatorId, TimeoutKind.COORDINATOR_WAIT);
+        leader.orTimeout(timeout, TimeUnit.MILLISECONDS).whenComplete((leaderId, e) -> {
+            if (e != null && !myNode.isLeader()) {
+                log.warn("Node {} neither granted me the leadership nor was a leader announced within {} ms. "
+                        + "Starting my own election", initiatorId, timeout);
+                myNode.getClient().initiateElection();
+            }
+        });
+    }
+
+    private CompletableFuture<Boolean> grantLeadership(Address candidate, long round) {
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(candidate))
+                .withDeadlineAfter(channelRegistry.getTimeout(candidate, TimeoutKind.ELECTION_ANSWER), TimeUnit.MILLISECONDS);
+
+        stub.grantLeadership(RequestBuilder.buildGrantLeadershipRequest(myNode.getNodeId(), round), new StreamObserver<>() {
+            @Override
+            public void onNext(GrantLeadershipResponse response) {
+                if (!response.getAck()) {
+                    log.info("Node {} declined the leadership", candidate.nodeId());
+                }
+                acknowledgment.complete(response.getAck());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.error("Error granting leadership to node {}: {}", candidate.nodeId(), t.toString());
+                acknowledgment.complete(false);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Acknowledgment is already completed in onNext.
+            }
+        });
+        return acknowledgment;
+    }
+}
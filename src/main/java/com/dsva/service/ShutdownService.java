@@ -1,21 +1,24 @@
 package com.dsva.service;
 
+import com.dsva.Node;
 import com.dsva.client.Client;
 import com.dsva.model.Address;
+import com.dsva.model.TimeoutKind;
 import com.dsva.pattern.builder.RequestBuilder;
-import com.dsva.util.Utils;
 import com.proto.chat_bully.NodeGrpc;
 import com.proto.chat_bully.QuitTopologyRequest;
 import com.proto.chat_bully.QuitTopologyResponse;
-import io.grpc.ManagedChannel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @RequiredArgsConstructor
 public class ShutdownService {
 
     private final Client client;
+    private final Node myNode;
 
     public void quitTopologyWithNotification(int senderNodeId) {
         Address leaderAddress = client.getLeaderAddress();
@@ -43,9 +46,10 @@ public class ShutdownService {
 
     private boolean sendQuitTopologyRequest(int senderNodeId, Address targetNodeAddress) {
         log.info("Sending QuitTopologyRequest to node: {}", targetNodeAddress.nodeId());
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodeAddress.port(), targetNodeAddress.hostname());
         try {
-            NodeGrpc.NodeBlockingStub stub = NodeGrpc.newBlockingStub(channel);
+            NodeGrpc.NodeBlockingStub stub = NodeGrpc.newBlockingStub(client.getChannelRegistry().getChannel(targetNodeAddress))
+                    .withDeadlineAfter(client.getChannelRegistry().getTimeout(targetNodeAddress, TimeoutKind.TOPOLOGY),
+                            TimeUnit.MILLISECONDS);
             QuitTopologyRequest request = RequestBuilder.buildQuitTopologyRequest(senderNodeId);
             QuitTopologyResponse messageResponse = stub.quitTopology(request);
 
@@ -53,9 +57,6 @@ public class ShutdownService {
         } catch (Exception e) {
             log.error("Error while quiting the topology: {}", e.getMessage());
             return false;
-        } finally {
-            channel.shutdown();
-            Utils.awaitChannelTermination(channel);
         }
     }
 
@@ -65,6 +66,11 @@ public class ShutdownService {
     }
 
     private void systemExit() {
+        if (myNode.isHeadless()) {
+            log.info("Stopping headless node {}", myNode.getNodeId());
+            myNode.stop();
+            return;
+        }
         System.exit(0);
     }
 }
\ No newline at end of file
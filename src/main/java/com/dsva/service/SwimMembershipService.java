@@ -0,0 +1,319 @@
+package com.dsva.service;
+
+import com.dsva.Node;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.membership.DisseminationBuffer;
+import com.dsva.membership.MemberState;
+import com.dsva.membership.MembershipList;
+import com.dsva.metrics.MetricNames;
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.model.Address;
+import com.dsva.model.Constants;
+import com.dsva.model.DSNeighbours;
+import com.dsva.model.TimeoutKind;
+import com.dsva.pattern.builder.ProtoModelBuilder;
+import com.dsva.pattern.builder.RequestBuilder;
+import com.dsva.pattern.builder.ResponseBuilder;
+import com.dsva.util.ExecutorFactory;
+import com.dsva.util.Utils;
+import com.proto.chat_bully.MemberStatus;
+import com.proto.chat_bully.MembershipUpdate;
+import com.proto.chat_bully.NodeGrpc;
+import com.proto.chat_bully.PingReqRequest;
+import com.proto.chat_bully.PingRequest;
+import com.proto.chat_bully.PingResponse;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SWIM membership: every protocol period this node pings one member, picked round-robin from a shuffled list, and
+ * asks a few other members to ping it indirectly when it does not answer. Unanswered members are suspected, and
+ * confirmed dead when nobody refutes the suspicion in time. Membership changes travel piggybacked on pings and
+ * their acks, so neither detection nor dissemination goes through the leader and the per-node load is independent
+ * of the cluster size.
+ */
+@Slf4j
+public class SwimMembershipService {
+    private final Node myNode;
+    private final DSNeighbours myNeighbours;
+    private final ChannelRegistry channelRegistry;
+    private final MetricsRegistry metricsRegistry;
+    private final MembershipList membershipList = new MembershipList();
+    private final DisseminationBuffer disseminationBuffer = new DisseminationBuffer();
+    private final ScheduledExecutorService swimExecutor = ExecutorFactory.newScheduledExecutor("swim");
+    private final List<Address> probeOrder = new ArrayList<>();
+    private int probeIndex;
+    private volatile long incarnation;
+
+    public SwimMembershipService(Node myNode, DSNeighbours myNeighbours, ChannelRegistry channelRegistry) {
+        this.myNode = myNode;
+        this.myNeighbours = myNeighbours;
+        this.channelRegistry = channelRegistry;
+        this.metricsRegistry = myNode.getMetricsRegistry();
+        metricsRegistry.gauge(MetricNames.SWIM_INCARNATION, () -> incarnation);
+        metricsRegistry.gauge(MetricNames.SWIM_PENDING_UPDATES, disseminationBuffer::size);
+    }
+
+    public void start() {
+        announceAlive();
+        swimExecutor.scheduleWithFixedDelay(this::runProtocolPeriod,
+                Constants.SWIM_PROTOCOL_PERIOD, Constants.SWIM_PROTOCOL_PERIOD, TimeUnit.MILLISECONDS);
+        log.info("SWIM membership started with protocol period {} ms", Constants.SWIM_PROTOCOL_PERIOD);
+    }
+
+    public void stop() {
+        swimExecutor.shutdownNow();
+    }
+
+    public boolean isSuspected(int nodeId) {
+        return membershipList.isSuspected(nodeId);
+    }
+
+    /**
+     * Called on the node that accepted a join. The joined node gets a fresh incarnation so that it overrides an
+     * older suspicion or death still travelling through the cluster.
+     */
+    public void onNodeJoined(Address address) {
+        MemberState previous = membershipList.get(address.nodeId());
+        long joinedIncarnation = previous == null ? 0 : previous.incarnation() + 1;
+        applyUpdate(ProtoModelBuilder.buildMembershipUpdate(address, joinedIncarnation, MemberStatus.ALIVE));
+    }
+
+    public void onNodeLeft(int nodeId) {
+        Address address = findAddress(nodeId);
+        if (address != null) {
+            applyUpdate(ProtoModelBuilder.buildMembershipUpdate(address, membershipList.getIncarnation(nodeId),
+                    MemberStatus.DEAD));
+        }
+    }
+
+    public void suspect(int nodeId) {
+        Address address = findAddress(nodeId);
+        if (address != null) {
+            applyUpdate(ProtoModelBuilder.buildMembershipUpdate(address, membershipList.getIncarnation(nodeId),
+                    MemberStatus.SUSPECT));
+        }
+    }
+
+    public PingResponse handlePing(PingRequest request) {
+        applyUpdates(request.getUpdatesList());
+        return ResponseBuilder.buildPingResponse(true, selectUpdates());
+    }
+
+    public CompletableFuture<PingResponse> handlePingReq(PingReqRequest request) {
+        applyUpdates(request.getUpdatesList());
+        Address target = Utils.convertProtoModelToModelAddress(request.getTarget());
+        return ping(target).thenApply(ack -> ResponseBuilder.buildPingResponse(ack, selectUpdates()));
+    }
+
+    private void runProtocolPeriod() {
+        try {
+            Address target = nextProbeTarget();
+            if (target != null && !ping(target).join() && !pingIndirectly(target).join()) {
+                suspect(target.nodeId());
+            }
+            expireSuspicions();
+        } catch (Exception e) {
+            log.error("SWIM protocol period failed: {}", e.toString());
+        }
+    }
+
+    private Address nextProbeTarget() {
+        if (probeIndex >= probeOrder.size()) {
+            probeOrder.clear();
+            probeOrder.addAll(myNeighbours.getSnapshot().getAddresses());
+            Collections.shuffle(probeOrder);
+            probeIndex = 0;
+        }
+        while (probeIndex < probeOrder.size()) {
+            Address candidate = probeOrder.get(probeIndex++);
+            if (myNeighbours.isNodePresent(candidate.nodeId())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<Boolean> ping(Address target) {
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(target))
+                .withDeadlineAfter(channelRegistry.getTimeout(target, TimeoutKind.HEARTBEAT), TimeUnit.MILLISECONDS);
+        metricsRegistry.increment(MetricNames.SWIM_PINGS);
+
+        stub.ping(RequestBuilder.buildPingRequest(myNode.getNodeId(), selectUpdates()), new StreamObserver<>() {
+            @Override
+            public void onNext(PingResponse response) {
+                applyUpdates(response.getUpdatesList());
+                acknowledgment.complete(response.getAck());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Ping to node {} failed: {}", target.nodeId(), t.toString());
+                acknowledgment.complete(false);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Acknowledgment is already completed in onNext.
+            }
+        });
+        return acknowledgment;
+    }
+
+    private CompletableFuture<Boolean> pingIndirectly(Address target) {
+        List<Address> helpers = new ArrayList<>(myNeighbours.getSnapshot().getAddresses());
+        helpers.removeIf(address -> address.nodeId() == target.nodeId());
+        Collections.shuffle(helpers);
+        helpers = helpers.subList(0, Math.min(Constants.SWIM_INDIRECT_PROBES, helpers.size()));
+        if (helpers.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        AtomicInteger pendingHelpers = new AtomicInteger(helpers.size());
+        for (Address helper : helpers) {
+            pingReq(helper, target).whenComplete((ack, e) -> {
+                if (Boolean.TRUE.equals(ack)) {
+                    acknowledgment.complete(true);
+                } else if (pendingHelpers.decrementAndGet() == 0) {
+                    acknowledgment.complete(false);
+                }
+            });
+        }
+        return acknowledgment;
+    }
+
+    private CompletableFuture<Boolean> pingReq(Address helper, Address target) {
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(helper))
+                .withDeadlineAfter(channelRegistry.getTimeout(helper, TimeoutKind.RELAY), TimeUnit.MILLISECONDS);
+        metricsRegistry.increment(MetricNames.SWIM_INDIRECT_PINGS);
+
+        stub.pingReq(RequestBuilder.buildPingReqRequest(myNode.getNodeId(), target, selectUpdates()), new StreamObserver<>() {
+            @Override
+            public void onNext(PingResponse response) {
+                applyUpdates(response.getUpdatesList());
+                acknowledgment.complete(response.getAck());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Indirect ping of node {} through node {} failed: {}", target.nodeId(), helper.nodeId(),
+                        t.toString());
+                acknowledgment.complete(false);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Acknowledgment is already completed in onNext.
+            }
+        });
+        return acknowledgment;
+    }
+
+    private void expireSuspicions() {
+        long suspicionTimeout = getSuspicionTimeout();
+        long now = System.currentTimeMillis();
+        for (MemberState suspect : membershipList.getSuspectedBefore(now - suspicionTimeout)) {
+            log.info("Suspicion of node {} was not refuted within {} ms", suspect.address().nodeId(), suspicionTimeout);
+            applyUpdate(ProtoModelBuilder.buildMembershipUpdate(suspect.address(), suspect.incarnation(), MemberStatus.DEAD));
+        }
+        membershipList.forgetDeadBefore(now - 2 * suspicionTimeout);
+    }
+
+    private long getSuspicionTimeout() {
+        int clusterSize = myNeighbours.getKnownNodes().size() + 1;
+        return Constants.SWIM_SUSPICION_MULTIPLIER * (32 - Integer.numberOfLeadingZeros(clusterSize))
+                * Constants.SWIM_PROTOCOL_PERIOD;
+    }
+
+    private void applyUpdates(List<MembershipUpdate> updates) {
+        updates.forEach(this::applyUpdate);
+    }
+
+    private void applyUpdate(MembershipUpdate update) {
+        int nodeId = update.getAddress().getNodeId();
+        if (nodeId == myNode.getNodeId()) {
+            refute(update);
+            return;
+        }
+        Address address = Utils.convertProtoModelToModelAddress(update.getAddress());
+        if (!membershipList.apply(address, update.getIncarnation(), update.getStatus())) {
+            return;
+        }
+        disseminationBuffer.enqueue(update);
+        switch (update.getStatus()) {
+            case ALIVE -> {
+                if (!myNeighbours.isNodePresent(nodeId)) {
+                    log.info("Node {} joined the membership", nodeId);
+                    myNeighbours.addNewNode(address);
+                }
+                myNode.getClient().getMailboxService().onNodeReachable(nodeId);
+            }
+            case SUSPECT -> {
+                log.warn("Node {} is suspected at incarnation {}", nodeId, update.getIncarnation());
+                metricsRegistry.increment(MetricNames.SWIM_SUSPECTED);
+            }
+            case DEAD -> removeDeadMember(nodeId);
+            default -> log.debug("Ignoring membership update with unknown status for node {}", nodeId);
+        }
+    }
+
+    private void removeDeadMember(int nodeId) {
+        metricsRegistry.increment(MetricNames.SWIM_CONFIRMED_DEAD);
+        if (!myNeighbours.isNodePresent(nodeId)) {
+            return;
+        }
+        log.info("Node {} is confirmed dead. Removing it from the membership", nodeId);
+        Address leaderAddress = myNeighbours.getLeaderAddress();
+        myNeighbours.removeNode(nodeId);
+        if (leaderAddress != null && leaderAddress.nodeId() == nodeId) {
+            log.info("Leader {} is dead. Starting leader election", nodeId);
+            myNode.getClient().initiateElection();
+        }
+    }
+
+    /**
+     * Another node suspects or buried this one. Outbidding its incarnation makes the alive update win everywhere.
+     */
+    private synchronized void refute(MembershipUpdate update) {
+        if (update.getIncarnation() < incarnation) {
+            return;
+        }
+        if (update.getStatus() == MemberStatus.ALIVE) {
+            incarnation = update.getIncarnation();
+            return;
+        }
+        incarnation = update.getIncarnation() + 1;
+        log.info("Refuting {} about myself with incarnation {}", update.getStatus(), incarnation);
+        metricsRegistry.increment(MetricNames.SWIM_REFUTED);
+        announceAlive();
+    }
+
+    private void announceAlive() {
+        disseminationBuffer.enqueue(ProtoModelBuilder.buildMembershipUpdate(myNeighbours.getMyAddress(), incarnation,
+                MemberStatus.ALIVE));
+    }
+
+    private List<MembershipUpdate> selectUpdates() {
+        return disseminationBuffer.select(myNeighbours.getKnownNodes().size() + 1);
+    }
+
+    private Address findAddress(int nodeId) {
+        Address address = myNeighbours.getKnownNodes().get(nodeId);
+        if (address == null) {
+            MemberState member = membershipList.get(nodeId);
+            return member == null ? null : member.address();
+        }
+        return address;
+    }
+}
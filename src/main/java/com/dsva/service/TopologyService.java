@@ -1,31 +1,47 @@
 package com.dsva.service;
 
 import com.dsva.Node;
-import com.dsva.exception.NodeNotFoundException;
+import com.dsva.client.ChannelRegistry;
+import com.dsva.metrics.MetricNames;
 import com.dsva.model.Address;
 import com.dsva.model.Constants;
 import com.dsva.model.DSNeighbours;
+import com.dsva.model.FanOutResult;
+import com.dsva.model.MembershipMode;
+import com.dsva.model.TimeoutKind;
+import com.dsva.model.TopologyUpdateResult;
 import com.dsva.pattern.builder.RequestBuilder;
 import com.dsva.pattern.builder.ResponseBuilder;
+import com.dsva.util.ExecutorFactory;
 import com.dsva.util.Utils;
 import com.proto.chat_bully.*;
-import io.grpc.ManagedChannel;
-import io.grpc.netty.shaded.io.netty.util.internal.shaded.org.jctools.queues.MessagePassingQueue;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 @Slf4j
 @RequiredArgsConstructor
 public class TopologyService {
     private final Node myNode;
     private final DSNeighbours myNeighbours;
-    @Setter private LeaderElectionService leaderElectionService;
+    private static final int NO_EXCLUDED_NODE = -1;
+    @Setter private HeartbeatService heartbeatService;
+    private final ExecutorService failureHandlingExecutor = ExecutorFactory.newSingleThreadExecutor("failure-handling");
+    private final Set<Integer> nodesUnderHealthCheck = ConcurrentHashMap.newKeySet();
+    private final ExecutorService topologyBroadcastExecutor = ExecutorFactory.newSingleThreadExecutor("topology-broadcast");
+    private final Semaphore broadcastPermits = new Semaphore(Constants.TOPOLOGY_BROADCAST_PARALLELISM);
 
     public void joinTopology(JoinRequest request, StreamObserver<JoinResponse> responseObserver) {
         if (!isValidJoinRequest(request)) {
@@ -35,42 +51,101 @@ public class TopologyService {
         processJoinRequest(request, responseObserver);
     }
 
-    public void updateTopology(AvailableNodesAddressesList addressesToAdd, StreamObserver<UpdateTopologyResponse> responseObserver) {
-        ConcurrentHashMap<Integer, Address> knownNodes = new ConcurrentHashMap<>();
-        addressesToAdd.getAddressesList().forEach(protoAddress -> {
-            Address address = Utils.convertProtoModelToModelAddress(protoAddress);
-            knownNodes.put(address.nodeId(), address);
-        });
-        this.myNeighbours.setKnownNodes(knownNodes);
-        log.info("Node's topology updated:\n {}", knownNodes);
+    public void updateTopology(UpdateTopologyRequest request, StreamObserver<UpdateTopologyResponse> responseObserver) {
+        List<Address> addresses = request.getAvailableNodesAddressesList().getAddressesList().stream()
+                .map(Utils::convertProtoModelToModelAddress)
+                .toList();
+        TopologyUpdateResult result = myNeighbours.applySnapshot(request.getEpoch(), request.getLeaderId(),
+                request.getTerm(), addresses);
+        log.info("Topology snapshot with epoch {} {} ({} nodes)", request.getEpoch(), result, addresses.size());
+        log.debug("Topology after snapshot:\n {}", myNeighbours.getKnownNodes());
+        recordTopologyUpdate(result);
         Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildUpdateTopologyResponse(true));
     }
 
+    public void applyTopologyDelta(TopologyDeltaRequest request, StreamObserver<TopologyDeltaResponse> responseObserver) {
+        List<Address> addedNodes = request.getAddedNodesList().stream()
+                .map(Utils::convertProtoModelToModelAddress)
+                .toList();
+        TopologyUpdateResult result = myNeighbours.applyDelta(request.getEpoch(), request.getLeaderId(),
+                request.getTerm(), addedNodes, request.getRemovedNodeIdsList());
+        log.info("Topology delta with epoch {} {}", request.getEpoch(), result);
+        recordTopologyUpdate(result);
+
+        boolean snapshotRequired = result == TopologyUpdateResult.GAP;
+        Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildTopologyDeltaResponse(!snapshotRequired,
+                myNeighbours.getTopologyEpoch(), snapshotRequired));
+    }
+
     public void addNewNodeToTopology(JoinRequest request) {
         Address newNodeAddress = new Address(request.getHostname(), request.getPort(), request.getNodeId());
         myNeighbours.addNewNode(newNodeAddress);
     }
 
-    public void updateNodeTopology(Address address) throws NodeNotFoundException {
-        Address targetNodeAddress = myNeighbours.getTargetNodeAddress(address.nodeId());
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodeAddress.port(), targetNodeAddress.hostname());
+    public CompletableFuture<Boolean> updateNodeTopology(Address address) {
+        CompletableFuture<Boolean> acknowledgment = new CompletableFuture<>();
+        ChannelRegistry channelRegistry = myNode.getClient().getChannelRegistry();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(address))
+                .withDeadlineAfter(channelRegistry.getTimeout(address, TimeoutKind.TOPOLOGY), TimeUnit.MILLISECONDS);
+        long epoch = myNeighbours.getTopologyEpoch();
+        UpdateTopologyRequest request = RequestBuilder.buildUpdateTopologyRequest(
+                myNeighbours.getAvailableNodesProtoAddresses(), epoch, myNode.getNodeId(), myNeighbours.getLeaderTerm());
+        log.debug("Sending updateTopology req to {}", address);
 
-        try {
-            NodeGrpc.NodeBlockingStub stub = NodeGrpc.newBlockingStub(channel)
-                    .withDeadlineAfter(Constants.MAX_ACCEPTABLE_DELAY, TimeUnit.MILLISECONDS);
-            UpdateTopologyRequest request = RequestBuilder.buildUpdateTopologyRequest(
-                    myNeighbours.getCurrentAvailableNodesProtoAddresses(this.myNode.getClient().getMyAddress().port(),
-                            this.myNode.getNodeId(), address.nodeId(), this.myNode.getClient().getMyAddress().hostname()));
-            UpdateTopologyResponse response = stub.updateTopology(request);
-            log.info("Sending updateTopology req to " + address);
-            if (!response.getAck()) {
-                log.error("Network topology delivery failed or false ack received for node {}", address.nodeId());
+        stub.updateTopology(request, new StreamObserver<>() {
+            @Override
+            public void onNext(UpdateTopologyResponse response) {
+                if (!response.getAck()) {
+                    log.error("Network topology delivery failed or false ack received for node {}", address.nodeId());
+                }
+                acknowledgment.complete(response.getAck());
             }
-        } catch (Exception e) {
-            log.error("Error sending gRPC updateTopology to node {}: {}", address.nodeId(), e.getMessage());
-        } finally {
-            channel.shutdown();
-        }
+
+            @Override
+            public void onError(Throwable t) {
+                log.error("Error sending gRPC updateTopology to node {}: {}", address.nodeId(), t.toString());
+                acknowledgment.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Acknowledgment is already completed in onNext.
+            }
+        });
+        return acknowledgment;
+    }
+
+    public CompletableFuture<Boolean> sendTopologyDelta(Address address, TopologyDeltaRequest request) {
+        CompletableFuture<TopologyDeltaResponse> response = new CompletableFuture<>();
+        ChannelRegistry channelRegistry = myNode.getClient().getChannelRegistry();
+        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channelRegistry.getChannel(address))
+                .withDeadlineAfter(channelRegistry.getTimeout(address, TimeoutKind.TOPOLOGY), TimeUnit.MILLISECONDS);
+
+        stub.applyTopologyDelta(request, new StreamObserver<>() {
+            @Override
+            public void onNext(TopologyDeltaResponse deltaResponse) {
+                response.complete(deltaResponse);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.error("Error sending topology delta to node {}: {}", address.nodeId(), t.toString());
+                response.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                // Response is already completed in onNext.
+            }
+        });
+
+        return response.thenCompose(deltaResponse -> {
+            if (deltaResponse.getSnapshotRequired()) {
+                log.info("Node {} is at epoch {} and needs a full topology snapshot", address.nodeId(), deltaResponse.getEpoch());
+                return updateNodeTopology(address);
+            }
+            return CompletableFuture.completedFuture(deltaResponse.getAck());
+        });
     }
 
     public void removeNodeFromTopology(QuitTopologyRequest request, StreamObserver<QuitTopologyResponse> responseObserver) {
@@ -80,102 +155,199 @@ public class TopologyService {
             response = ResponseBuilder.buildQuitTopologyResponse(false);
             Utils.sendAcknowledgment(responseObserver, response);
         } else {
-            myNode.getClient().getMyNeighbours().removeNode(request.getSenderNodeId());
-            if (myNode.isLeader()) {
-                updateAllNodesTopologyKnowledge();
+            if (isSwimMembership()) {
+                myNode.getClient().getMembershipService().onNodeLeft(request.getSenderNodeId());
+            } else {
+                myNode.getClient().getMyNeighbours().removeNode(request.getSenderNodeId());
+                if (myNode.isLeader()) {
+                    publishNodesRemoved(Set.of(request.getSenderNodeId()));
+                }
             }
             response = ResponseBuilder.buildQuitTopologyResponse(true);
             Utils.sendAcknowledgment(responseObserver, response);
             if (request.getSenderNodeId() == myNode.getClient().getLeaderAddress().nodeId()) {
                 log.info("Leader logged out from the topology! Currently there is no leader. Start leader election");
-                leaderElectionService.initiateElection();
+                myNode.getClient().initiateElection();
             }
         }
     }
 
-    public boolean checkNodeHealthAndHandleFailure(int targetNodeId) {
-        AtomicBoolean isNodeAlive = new AtomicBoolean(false);
+    public void shutdown() {
+        failureHandlingExecutor.shutdownNow();
+        topologyBroadcastExecutor.shutdownNow();
+    }
 
-        for (int i = 0; i < Constants.MAX_RETRIES; i++) {
-            checkIfNodeIsAlive(targetNodeId, isAlive -> {
-                if (Boolean.FALSE.equals(isAlive)) {
-                    log.info("Node with id: {} does not respond", targetNodeId);
-                    isNodeAlive.set(false);
-                } else {
-                    isNodeAlive.set(true);
-                }
-            });
-            Utils.sleep();
+    public void scheduleHealthCheck(int targetNodeId) {
+        if (!nodesUnderHealthCheck.add(targetNodeId)) {
+            log.debug("Health check of node {} is already scheduled", targetNodeId);
+            return;
         }
+        failureHandlingExecutor.execute(() -> {
+            try {
+                checkNodeHealthAndHandleFailure(targetNodeId);
+            } finally {
+                nodesUnderHealthCheck.remove(targetNodeId);
+            }
+        });
+    }
 
-        if (!isNodeAlive.get()) {
-            log.info("Node didn't respond for {} times. Deleting node from the topology", Constants.MAX_RETRIES);
-            myNeighbours.removeNode(targetNodeId);
-            updateAllNodesTopologyKnowledge();
-            return false;
-        } else {
-            log.info("Node with id: {} is alive", targetNodeId);
-            return true;
+    public boolean checkNodeHealthAndHandleFailure(int targetNodeId) {
+        for (int i = 0; i < Constants.MAX_RETRIES; i++) {
+            if (Boolean.TRUE.equals(heartbeatService.probe(targetNodeId).join())) {
+                log.info("Node with id: {} is alive", targetNodeId);
+                myNode.getMetricsRegistry().increment(MetricNames.HEALTH_CHECK_ALIVE);
+                return true;
+            }
+            log.info("Node with id: {} does not respond (phi = {})", targetNodeId,
+                    String.format("%.2f", heartbeatService.getPhi(targetNodeId)));
         }
+
+        log.info("Node didn't respond for {} times. Deleting node from the topology", Constants.MAX_RETRIES);
+        myNode.getMetricsRegistry().increment(MetricNames.HEALTH_CHECK_DEAD);
+        handleNodeFailures(Set.of(targetNodeId));
+        return false;
     }
 
-    public void updateAllNodesTopologyKnowledge() {
-        log.info("Sending updateTopology to remaining nodes...");
-        for (Address address : myNeighbours.getKnownNodes().values()) {
-            try {
-                this.updateNodeTopology(address);
-            } catch (NodeNotFoundException e) {
-                log.error("Node not found: {}", e.getMessage());
-            }
+    /**
+     * A phi suspicion is confirmed by probing the node before it is removed.
+     */
+    public void handleSuspectedNode(int suspectedNodeId) {
+        if (myNode.isLeader()) {
+            scheduleHealthCheck(suspectedNodeId);
+            return;
         }
-        if (myNeighbours.getKnownNodes().size() == 0) {
-            log.info("No node is available to update its' topology knowledge.");
+        failureHandlingExecutor.execute(() -> {
+            if (myNode.isLeader() || suspectedNodeId != myNeighbours.getLeaderAddress().nodeId()) {
+                return;
+            }
+            if (Boolean.TRUE.equals(heartbeatService.probe(suspectedNodeId).join())) {
+                log.info("Suspected leader {} answered the probe", suspectedNodeId);
+                return;
+            }
+            log.info("Leader {} is suspected. Removing it and starting leader election", suspectedNodeId);
+            myNeighbours.removeNode(suspectedNodeId);
+            myNode.getClient().initiateElection();
+        });
+    }
+
+    /**
+     * A follower that keeps sending heartbeats is alive, so if it was removed after a false suspicion the leader
+     * adds it back.
+     */
+    public void readmitHeartbeatSender(HeartbeatRequest request) {
+        int senderNodeId = request.getSenderNodeId();
+        if (isSwimMembership() || !myNode.isLeader() || request.getLeader() || senderNodeId == myNode.getNodeId()
+                || myNeighbours.isNodePresent(senderNodeId)) {
+            return;
         }
+        log.info("Node {} sends heartbeats but is not in the topology, adding it back", senderNodeId);
+        Address senderAddress = new Address(request.getHostname(), Utils.getNodePortFromNodeId(senderNodeId), senderNodeId);
+        myNeighbours.addNewNode(senderAddress);
+        publishNodeJoined(senderAddress);
+        myNode.getClient().getMailboxService().onNodeReachable(senderNodeId);
     }
 
-    private void checkIfNodeIsAlive(int targetNodeId, MessagePassingQueue.Consumer<Boolean> onResult) {
-        int targetNodePort;
-        String targetNodeHostname;
-        try {
-            Address targetNodeAddress = myNeighbours.getTargetNodeAddress(targetNodeId);
-            targetNodePort = targetNodeAddress.port();
-            targetNodeHostname = targetNodeAddress.hostname();
-        } catch (NodeNotFoundException e) {
-            log.error(e.getMessage());
+    public void handleNodeFailures(Set<Integer> failedNodeIds) {
+        if (failedNodeIds.isEmpty()) {
             return;
         }
-        ManagedChannel channel = Utils.buildManagedChannel(targetNodePort, targetNodeHostname);
-        NodeGrpc.NodeStub stub = NodeGrpc.newStub(channel)
-                .withDeadlineAfter(Constants.MAX_ACCEPTABLE_DELAY, TimeUnit.SECONDS);
-        AliveRequest request = RequestBuilder.buildAliveRequest(myNode.getNodeId());
+        if (isSwimMembership()) {
+            log.info("Suspecting unresponsive nodes {}", failedNodeIds);
+            failedNodeIds.forEach(myNode.getClient().getMembershipService()::suspect);
+            return;
+        }
+        log.info("Removing unresponsive nodes {} from the topology", failedNodeIds);
+        failedNodeIds.forEach(myNeighbours::removeNode);
+        if (myNode.isLeader()) {
+            publishNodesRemoved(failedNodeIds);
+        }
+    }
 
-        stub.isNodeAlive(request, new StreamObserver<>() {
-            @Override
-            public void onNext(AliveResponse aliveResponse) {
-                if (aliveResponse.getAck()) {
-                    log.info("Node with id: {} is still alive", targetNodeId);
-                    onResult.accept(true);
-                } else {
-                    log.error("Health checking failed or false ack received.");
-                    onResult.accept(false);
-                }
-            }
+    public CompletableFuture<FanOutResult> publishFullTopology() {
+        if (isSwimMembership()) {
+            return CompletableFuture.completedFuture(new FanOutResult(Set.of(), Set.of(), Set.of()));
+        }
+        advanceTopologyEpoch();
+        log.info("Sending topology snapshot with epoch {} to remaining nodes...", myNeighbours.getTopologyEpoch());
+        return broadcast(NO_EXCLUDED_NODE, this::updateNodeTopology);
+    }
 
-            @Override
-            public void onError(Throwable t) {
-                log.error("Error checking if node {} is alive: {}", targetNodeId, t.toString());
-                onResult.accept(false);
-            }
+    public CompletableFuture<FanOutResult> publishNodeJoined(Address joinedNodeAddress) {
+        long epoch = advanceTopologyEpoch();
+        TopologyDeltaRequest delta = RequestBuilder.buildTopologyDeltaRequest(epoch, myNode.getNodeId(),
+                myNeighbours.getLeaderTerm(), List.of(joinedNodeAddress), List.of());
+        log.info("Sending topology delta {} (node {} joined) to remaining nodes...", epoch, joinedNodeAddress.nodeId());
+        return broadcast(joinedNodeAddress.nodeId(), address -> sendTopologyDelta(address, delta));
+    }
 
-            @Override
-            public void onCompleted() {
-                channel.shutdownNow();
-            }
-        });
+    public CompletableFuture<FanOutResult> publishNodesRemoved(Set<Integer> removedNodeIds) {
+        long epoch = advanceTopologyEpoch();
+        TopologyDeltaRequest delta = RequestBuilder.buildTopologyDeltaRequest(epoch, myNode.getNodeId(),
+                myNeighbours.getLeaderTerm(), List.of(), removedNodeIds);
+        log.info("Sending topology delta {} (nodes {} removed) to remaining nodes...", epoch, removedNodeIds);
+        return broadcast(NO_EXCLUDED_NODE, address -> sendTopologyDelta(address, delta));
+    }
+
+    private CompletableFuture<FanOutResult> broadcast(int excludedNodeId, Function<Address, CompletableFuture<Boolean>> call) {
+        return CompletableFuture.supplyAsync(() -> issueBroadcast(excludedNodeId, call), topologyBroadcastExecutor)
+                .thenCompose(responses -> Utils.collectFanOut(responses, getBroadcastTimeout(responses.keySet())))
+                .whenComplete((result, e) -> {
+                    if (result != null) {
+                        log.info("Topology broadcast acknowledged by {}, rejected by {}, failed for {}",
+                                result.acknowledgedNodes(), result.rejectedNodes(), result.failedNodes());
+                    }
+                });
+    }
 
-        channel.shutdown();
+    private long advanceTopologyEpoch() {
+        myNode.getMetricsRegistry().increment(MetricNames.TOPOLOGY_EPOCH_CHANGES);
+        return myNeighbours.advanceTopologyEpoch();
     }
 
+    private void recordTopologyUpdate(TopologyUpdateResult result) {
+        switch (result) {
+            case APPLIED -> myNode.getMetricsRegistry().increment(MetricNames.TOPOLOGY_EPOCH_CHANGES);
+            case STALE -> myNode.getMetricsRegistry().increment(MetricNames.TOPOLOGY_STALE_UPDATES);
+            case GAP -> myNode.getMetricsRegistry().increment(MetricNames.TOPOLOGY_GAPS);
+        }
+    }
+
+    private long getBroadcastTimeout(Set<Integer> nodeIds) {
+        return myNode.getClient().getChannelRegistry().getRttTracker().getTimeout(nodeIds, TimeoutKind.TOPOLOGY);
+    }
+
+    private Map<Integer, CompletableFuture<Boolean>> issueBroadcast(int excludedNodeId, Function<Address, CompletableFuture<Boolean>> call) {
+        Map<Integer, CompletableFuture<Boolean>> responses = new HashMap<>();
+        for (Address address : myNeighbours.getKnownNodes().values()) {
+            if (address.nodeId() == excludedNodeId) {
+                continue;
+            }
+            try {
+                broadcastPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Topology broadcast was interrupted", e);
+                break;
+            }
+            CompletableFuture<Boolean> response;
+            try {
+                response = call.apply(address);
+            } catch (RuntimeException e) {
+                log.warn("Topology broadcast to node {} could not be issued: {}", address.nodeId(), e.toString());
+                response = CompletableFuture.failedFuture(e);
+            }
+            response.whenComplete((ack, e) -> broadcastPermits.release());
+            responses.put(address.nodeId(), response);
+        }
+        if (responses.isEmpty()) {
+            log.info("No node is available to update its' topology knowledge.");
+        }
+        return responses;
+    }
+
+    private boolean isSwimMembership() {
+        return Constants.MEMBERSHIP_MODE == MembershipMode.SWIM;
+    }
 
     private boolean isValidJoinRequest(JoinRequest request) {
         return myNode.getNodeId() != request.getNodeId() && request.getPort() > Constants.DEFAULT_PORT;
@@ -187,19 +359,43 @@ public class TopologyService {
     }
 
     private void processJoinRequest(JoinRequest request, StreamObserver<JoinResponse> responseObserver) {
+        if (isSwimMembership()) {
+            Address joinedNodeAddress = new Address(request.getHostname(), request.getPort(), request.getNodeId());
+            myNode.getClient().getMembershipService().onNodeJoined(joinedNodeAddress);
+            sendPositiveAcknowledgment(responseObserver);
+            return;
+        }
+        if (!myNode.isLeader()) {
+            redirectToLeader(responseObserver);
+            return;
+        }
+        heartbeatService.awaitFirstHeartbeat(request.getNodeId());
         this.addNewNodeToTopology(request);
-        myNode.getClient().sendCurrentTopology(request.getNodeId());
-        sendPositiveAcknowledgment(responseObserver, request.getNodeId());
+        Address joinedNodeAddress = new Address(request.getHostname(), request.getPort(), request.getNodeId());
+        publishNodeJoined(joinedNodeAddress);
+        sendPositiveAcknowledgment(responseObserver);
+        myNode.getClient().getMailboxService().onNodeReachable(request.getNodeId());
     }
 
-    private void sendPositiveAcknowledgment(StreamObserver<JoinResponse> responseObserver, int senderId) {
+    private void sendPositiveAcknowledgment(StreamObserver<JoinResponse> responseObserver) {
         JoinResponse joinResponse = ResponseBuilder.buildJoinResponse(true,
                 myNeighbours.getCurrentProtoLeader(),
-                myNeighbours.getCurrentAvailableNodesProtoAddresses(myNode.getClient().getMyAddress().port(), myNode.getNodeId(), senderId, myNode.getClient().getMyAddress().hostname())
+                myNeighbours.getAvailableNodesProtoAddresses(),
+                myNeighbours.getTopologyEpoch(),
+                myNeighbours.getLeaderTerm()
         );
         Utils.sendAcknowledgment(responseObserver, joinResponse);
     }
 
+    private void redirectToLeader(StreamObserver<JoinResponse> responseObserver) {
+        Address leaderAddress = myNeighbours.getLeaderAddress();
+        if (leaderAddress == null || leaderAddress.nodeId() == myNode.getNodeId()) {
+            sendNegativeAcknowledgment(responseObserver);
+            return;
+        }
+        Utils.sendAcknowledgment(responseObserver, ResponseBuilder.buildJoinRedirectResponse(myNeighbours.getCurrentProtoLeader()));
+    }
+
     private void sendNegativeAcknowledgment(StreamObserver<JoinResponse> responseObserver) {
         JoinResponse joinResponse = ResponseBuilder.buildJoinResponse(false);
         Utils.sendAcknowledgment(responseObserver, joinResponse);
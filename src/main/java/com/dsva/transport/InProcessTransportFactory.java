@@ -0,0 +1,29 @@
+package com.dsva.transport;
+
+import com.dsva.model.Address;
+import com.dsva.util.ExecutorFactory;
+import io.grpc.ManagedChannel;
+import io.grpc.ServerBuilder;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+
+public class InProcessTransportFactory implements TransportFactory {
+
+    @Override
+    public ServerBuilder<?> buildServer(Address address) {
+        InProcessServerBuilder serverBuilder = InProcessServerBuilder.forName(getServerName(address.nodeId()));
+        ExecutorFactory.getRpcExecutor().ifPresent(serverBuilder::executor);
+        return serverBuilder;
+    }
+
+    @Override
+    public ManagedChannel buildChannel(Address address) {
+        InProcessChannelBuilder channelBuilder = InProcessChannelBuilder.forName(getServerName(address.nodeId()));
+        ExecutorFactory.getRpcExecutor().ifPresent(channelBuilder::executor);
+        return channelBuilder.build();
+    }
+
+    public static String getServerName(int nodeId) {
+        return "dsva-node-" + nodeId;
+    }
+}
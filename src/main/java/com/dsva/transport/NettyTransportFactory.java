@@ -0,0 +1,22 @@
+package com.dsva.transport;
+
+import com.dsva.model.Address;
+import com.dsva.util.ExecutorFactory;
+import com.dsva.util.Utils;
+import io.grpc.ManagedChannel;
+import io.grpc.ServerBuilder;
+
+public class NettyTransportFactory implements TransportFactory {
+
+    @Override
+    public ServerBuilder<?> buildServer(Address address) {
+        ServerBuilder<?> serverBuilder = ServerBuilder.forPort(address.port());
+        ExecutorFactory.getRpcExecutor().ifPresent(serverBuilder::executor);
+        return serverBuilder;
+    }
+
+    @Override
+    public ManagedChannel buildChannel(Address address) {
+        return Utils.buildManagedChannel(address.port(), address.hostname());
+    }
+}
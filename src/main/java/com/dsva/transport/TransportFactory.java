@@ -0,0 +1,11 @@
+package com.dsva.transport;
+
+import com.dsva.model.Address;
+import io.grpc.ManagedChannel;
+import io.grpc.ServerBuilder;
+
+public interface TransportFactory {
+    ServerBuilder<?> buildServer(Address address);
+
+    ManagedChannel buildChannel(Address address);
+}
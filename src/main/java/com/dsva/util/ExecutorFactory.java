@@ -0,0 +1,55 @@
+package com.dsva.util;
+
+import com.dsva.model.Constants;
+import com.dsva.model.ThreadMode;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExecutorFactory {
+
+    // Shared by every server and channel in the JVM; virtual threads are cheap enough to start one per RPC callback.
+    private static final ExecutorService RPC_EXECUTOR = isVirtualThreadMode()
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-virtual-", 1).factory())
+            : null;
+
+    private ExecutorFactory() {
+        throw new UnsupportedOperationException("Can not init static class");
+    }
+
+    public static boolean isVirtualThreadMode() {
+        return Constants.THREAD_MODE == ThreadMode.VIRTUAL;
+    }
+
+    /**
+     * Executor for gRPC servers and channels. Empty in platform mode, where gRPC keeps its default cached pool.
+     */
+    public static Optional<Executor> getRpcExecutor() {
+        return Optional.ofNullable(RPC_EXECUTOR);
+    }
+
+    public static ExecutorService newSingleThreadExecutor(String name) {
+        return Executors.newSingleThreadExecutor(daemonThreadFactory(name));
+    }
+
+    public static ScheduledExecutorService newScheduledExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(daemonThreadFactory(name));
+    }
+
+    public static ThreadFactory daemonThreadFactory(String name) {
+        if (isVirtualThreadMode()) {
+            return Thread.ofVirtual().name(name + "-", 1).factory();
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.dsva.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LogRateLimiter {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long permitsPerWindow;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicLong permitsUsed = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogRateLimiter(long permitsPerSecond) {
+        this.permitsPerWindow = permitsPerSecond;
+    }
+
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        long currentWindowStart = windowStart.get();
+        if (now - currentWindowStart >= WINDOW_NANOS && windowStart.compareAndSet(currentWindowStart, now)) {
+            permitsUsed.set(0);
+        }
+        if (permitsUsed.incrementAndGet() <= permitsPerWindow) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+
+    public long drainSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
@@ -2,12 +2,19 @@ package com.dsva.util;
 
 import com.dsva.model.Address;
 import com.dsva.model.Constants;
+import com.dsva.model.FanOutResult;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -30,28 +37,66 @@ public class Utils {
         responseObserver.onCompleted();
     }
 
+    public static List<Integer> parseNodeIds(String nodeIds) {
+        List<Integer> parsedNodeIds = new ArrayList<>();
+        for (String part : nodeIds.split(",")) {
+            String trimmedPart = part.trim();
+            if (trimmedPart.isEmpty()) {
+                continue;
+            }
+            int rangeSeparator = trimmedPart.indexOf('-');
+            if (rangeSeparator > 0) {
+                int from = Integer.parseInt(trimmedPart.substring(0, rangeSeparator).trim());
+                int to = Integer.parseInt(trimmedPart.substring(rangeSeparator + 1).trim());
+                for (int nodeId = Math.max(from, to); nodeId >= Math.min(from, to); nodeId--) {
+                    parsedNodeIds.add(nodeId);
+                }
+            } else {
+                parsedNodeIds.add(Integer.parseInt(trimmedPart));
+            }
+        }
+        return parsedNodeIds;
+    }
+
     public static ManagedChannel buildManagedChannel(int targetNodePort, String hostname) {
-        return ManagedChannelBuilder.forAddress(hostname, targetNodePort)
-                .usePlaintext()
-                .build();
+        ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder.forAddress(hostname, targetNodePort)
+                .usePlaintext();
+        ExecutorFactory.getRpcExecutor().ifPresent(channelBuilder::executor);
+        return channelBuilder.build();
     }
 
-    public static void sleep() {
+    public static void sleep(long millis) {
         try {
-            Thread.sleep(Constants.MAX_ACCEPTABLE_DELAY);
+            Thread.sleep(millis);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Thread interrupted during retry delay", e);
         }
     }
 
-    public static void awaitChannelTermination(ManagedChannel channel) {
-        try {
-            channel.awaitTermination(5, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.error("Interrupted while waiting for the channel to terminate", e);
-        }
+    public static FanOutResult awaitFanOut(Map<Integer, CompletableFuture<Boolean>> responses, long timeoutMillis) {
+        return collectFanOut(responses, timeoutMillis).join();
+    }
+
+    public static CompletableFuture<FanOutResult> collectFanOut(Map<Integer, CompletableFuture<Boolean>> responses, long timeoutMillis) {
+        return CompletableFuture.allOf(responses.values().toArray(CompletableFuture[]::new))
+                .completeOnTimeout(null, timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((ignored, e) -> classifyFanOut(responses));
+    }
+
+    private static FanOutResult classifyFanOut(Map<Integer, CompletableFuture<Boolean>> responses) {
+        Set<Integer> acknowledgedNodes = new HashSet<>();
+        Set<Integer> rejectedNodes = new HashSet<>();
+        Set<Integer> failedNodes = new HashSet<>();
+        responses.forEach((nodeId, response) -> {
+            if (response.isDone() && !response.isCompletedExceptionally()) {
+                (Boolean.TRUE.equals(response.join()) ? acknowledgedNodes : rejectedNodes).add(nodeId);
+            } else {
+                response.cancel(true);
+                failedNodes.add(nodeId);
+            }
+        });
+        return new FanOutResult(acknowledgedNodes, rejectedNodes, failedNodes);
     }
 
     public static boolean areArgumentsValid(String[] arguments, int expectedArguments) {
@@ -0,0 +1,25 @@
+package com.dsva.wal;
+
+public enum LogRecordType {
+    ACCEPTED((byte) 1),
+    DELIVERED((byte) 2);
+
+    private final byte code;
+
+    LogRecordType(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static LogRecordType fromCode(byte code) {
+        for (LogRecordType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.dsva.wal;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+@Slf4j
+class LogSegment {
+    // totalLength (int) + crc (int), followed by the record body
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    @Getter
+    private final long segmentId;
+    @Getter
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    @Getter
+    private int outstandingMessages;
+    @Getter
+    private boolean sealed;
+
+    LogSegment(long segmentId, Path path, int segmentSize) throws IOException {
+        this.segmentId = segmentId;
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    boolean hasRoomFor(int bodySize) {
+        // Keep room for a zero length marker so recovery always finds the end of the segment.
+        return buffer.remaining() >= HEADER_SIZE + bodySize + Integer.BYTES;
+    }
+
+    void append(byte[] body, CRC32 crc) {
+        crc.reset();
+        crc.update(body);
+        buffer.putInt(body.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(body);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void seal() {
+        sealed = true;
+        force();
+    }
+
+    void messageAccepted() {
+        outstandingMessages++;
+    }
+
+    void messageDelivered() {
+        outstandingMessages--;
+    }
+
+    int recover(RecordConsumer consumer) {
+        CRC32 crc = new CRC32();
+        int records = 0;
+        buffer.position(0);
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - Integer.BYTES) {
+                buffer.position(start);
+                break;
+            }
+            int expectedCrc = buffer.getInt();
+            byte[] body = new byte[length];
+            buffer.get(body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != expectedCrc) {
+                log.warn("Torn record at offset {} of {}; truncating", start, path.getFileName());
+                buffer.position(start);
+                buffer.putInt(0);
+                buffer.position(start);
+                break;
+            }
+            consumer.accept(body);
+            records++;
+        }
+        return records;
+    }
+
+    void delete() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Cannot delete compacted log segment {}: {}", path, e.toString());
+        }
+    }
+
+    interface RecordConsumer {
+        void accept(byte[] body);
+    }
+}
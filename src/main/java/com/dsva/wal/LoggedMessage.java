@@ -0,0 +1,4 @@
+package com.dsva.wal;
+
+public record LoggedMessage(long messageId, int senderId, int receiverId, long acceptedAt, String message) {
+}
@@ -0,0 +1,348 @@
+package com.dsva.wal;
+
+import com.dsva.metrics.MetricNames;
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.model.Constants;
+import com.dsva.util.ExecutorFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of messages this node accepted for delivery. Records are written to memory-mapped segments by a
+ * single writer thread which group-commits every batch with one force. Sealed segments are deleted oldest first once
+ * all their messages were delivered; old segments still holding undelivered messages are compacted by copying those
+ * messages forward.
+ */
+@Slf4j
+public class MessageLog {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int NODE_ID_SHIFT = 48;
+    private static final long SEQUENCE_MASK = (1L << NODE_ID_SHIFT) - 1;
+    private static final int ACCEPTED_HEADER_SIZE = 1 + Long.BYTES * 2 + Integer.BYTES * 2;
+    private static final int DELIVERED_RECORD_SIZE = 1 + Long.BYTES;
+
+    private final int nodeId;
+    private final Path directory;
+    private final MetricsRegistry metricsRegistry;
+    private final BlockingQueue<WriteRequest> writeQueue = new LinkedBlockingQueue<>();
+    private final Map<Long, PendingMessage> pendingMessages = new ConcurrentHashMap<>();
+    private final List<LogSegment> sealedSegments = new ArrayList<>();
+    private final AtomicLong messageSequence;
+    private final CRC32 crc = new CRC32();
+    private ExecutorService writerExecutor;
+    private LogSegment activeSegment;
+    private volatile boolean running;
+    @Getter
+    private long recoveryDurationMillis;
+
+    public MessageLog(int nodeId, MetricsRegistry metricsRegistry) {
+        this.nodeId = nodeId;
+        this.directory = Path.of(Constants.WAL_DIRECTORY, "node-" + nodeId);
+        this.metricsRegistry = metricsRegistry;
+        this.messageSequence = new AtomicLong(System.currentTimeMillis() << 6);
+    }
+
+    public synchronized void open() throws IOException {
+        if (running) {
+            return;
+        }
+        long recoveryStart = System.nanoTime();
+        Files.createDirectories(directory);
+        int recoveredRecords = recoverSegments();
+        if (activeSegment == null) {
+            activeSegment = openSegment(0, Constants.WAL_SEGMENT_SIZE);
+        }
+        compact();
+        recoveryDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoveryStart);
+        log.info("Recovered message log in {} ms: {} records, {} undelivered messages, {} segments",
+                recoveryDurationMillis, recoveredRecords, pendingMessages.size(), sealedSegments.size() + 1);
+
+        metricsRegistry.gauge(MetricNames.WAL_UNDELIVERED, pendingMessages::size);
+        metricsRegistry.gauge(MetricNames.WAL_RECOVERY_DURATION, this::getRecoveryDurationMillis);
+        running = true;
+        writerExecutor = ExecutorFactory.newSingleThreadExecutor("wal-writer");
+        writerExecutor.execute(this::runWriter);
+    }
+
+    public long nextMessageId() {
+        return ((long) nodeId << NODE_ID_SHIFT) | (messageSequence.incrementAndGet() & SEQUENCE_MASK);
+    }
+
+    public CompletableFuture<Void> appendAccepted(LoggedMessage message) {
+        return enqueue(new WriteRequest(LogRecordType.ACCEPTED, message.messageId(), message));
+    }
+
+    public CompletableFuture<Void> markDelivered(long messageId) {
+        return enqueue(new WriteRequest(LogRecordType.DELIVERED, messageId, null));
+    }
+
+    public List<LoggedMessage> getUndeliveredMessages() {
+        return pendingMessages.values().stream()
+                .map(PendingMessage::message)
+                .sorted(Comparator.comparingLong(LoggedMessage::acceptedAt))
+                .toList();
+    }
+
+    public int getUndeliveredCount() {
+        return pendingMessages.size();
+    }
+
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(Constants.MAX_ACCEPTABLE_DELAY, TimeUnit.MILLISECONDS)) {
+                log.warn("Message log writer did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        activeSegment.force();
+    }
+
+    private CompletableFuture<Void> enqueue(WriteRequest request) {
+        if (!running) {
+            request.result.completeExceptionally(new IllegalStateException("Message log is closed"));
+            return request.result;
+        }
+        writeQueue.add(request);
+        return request.result;
+    }
+
+    private void runWriter() {
+        List<WriteRequest> batch = new ArrayList<>(Constants.WAL_BATCH_SIZE);
+        while (running || !writeQueue.isEmpty()) {
+            try {
+                WriteRequest first = writeQueue.poll(Constants.WAL_COMPACTION_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    compact();
+                    continue;
+                }
+                batch.add(first);
+                writeQueue.drainTo(batch, Constants.WAL_BATCH_SIZE - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Message log writer failed: {}", e.toString());
+                batch.forEach(request -> request.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<WriteRequest> batch) {
+        for (WriteRequest request : batch) {
+            if (request.type == LogRecordType.ACCEPTED) {
+                writeAccepted(request.message);
+            } else {
+                writeDelivered(request.messageId);
+            }
+        }
+        if (Constants.WAL_FSYNC) {
+            activeSegment.force();
+        }
+        metricsRegistry.record(MetricNames.WAL_BATCH_SIZE, batch.size());
+        batch.forEach(request -> request.result.complete(null));
+        compact();
+    }
+
+    private void writeAccepted(LoggedMessage message) {
+        byte[] body = encodeAccepted(message);
+        LogSegment segment = append(body);
+        PendingMessage previous = pendingMessages.put(message.messageId(), new PendingMessage(message, segment));
+        if (previous != null) {
+            previous.segment.messageDelivered();
+        }
+        segment.messageAccepted();
+    }
+
+    private void writeDelivered(long messageId) {
+        PendingMessage pendingMessage = pendingMessages.remove(messageId);
+        if (pendingMessage == null) {
+            return;
+        }
+        append(ByteBuffer.allocate(DELIVERED_RECORD_SIZE)
+                .put(LogRecordType.DELIVERED.getCode())
+                .putLong(messageId)
+                .array());
+        pendingMessage.segment.messageDelivered();
+    }
+
+    private LogSegment append(byte[] body) {
+        if (!activeSegment.hasRoomFor(body.length)) {
+            rollSegment();
+            if (!activeSegment.hasRoomFor(body.length)) {
+                throw new IllegalArgumentException("Record of " + body.length + " bytes does not fit into a log segment");
+            }
+        }
+        activeSegment.append(body, crc);
+        return activeSegment;
+    }
+
+    private void rollSegment() {
+        activeSegment.seal();
+        sealedSegments.add(activeSegment);
+        try {
+            activeSegment = openSegment(activeSegment.getSegmentId() + 1, Constants.WAL_SEGMENT_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open a new log segment", e);
+        }
+    }
+
+    private void compact() {
+        // Delete only from the oldest segment on: a later segment may hold the DELIVERED markers for messages
+        // accepted in an older one that is still kept, and losing them would resurrect those messages on recovery.
+        Iterator<LogSegment> iterator = sealedSegments.iterator();
+        while (iterator.hasNext()) {
+            LogSegment segment = iterator.next();
+            if (segment.getOutstandingMessages() > 0) {
+                break;
+            }
+            iterator.remove();
+            segment.delete();
+            metricsRegistry.increment(MetricNames.WAL_COMPACTED_SEGMENTS);
+        }
+        if (sealedSegments.size() > Constants.WAL_MAX_SEALED_SEGMENTS) {
+            copyForward(sealedSegments.remove(0));
+        }
+    }
+
+    private void copyForward(LogSegment segment) {
+        long expiredBefore = System.currentTimeMillis() - Constants.WAL_RETENTION;
+        List<PendingMessage> retained = pendingMessages.values().stream()
+                .filter(pendingMessage -> pendingMessage.segment == segment)
+                .toList();
+        int expired = 0;
+        for (PendingMessage pendingMessage : retained) {
+            if (pendingMessage.message.acceptedAt() < expiredBefore) {
+                pendingMessages.remove(pendingMessage.message.messageId());
+                expired++;
+            } else {
+                writeAccepted(pendingMessage.message);
+            }
+        }
+        activeSegment.force();
+        segment.delete();
+        metricsRegistry.increment(MetricNames.WAL_COMPACTED_SEGMENTS);
+        if (expired > 0) {
+            log.warn("Dropped {} messages that stayed undelivered for longer than {} ms", expired, Constants.WAL_RETENTION);
+        }
+        log.debug("Compacted log segment {}: {} undelivered messages copied forward",
+                segment.getSegmentId(), retained.size() - expired);
+    }
+
+    private int recoverSegments() throws IOException {
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted(Comparator.comparingLong(MessageLog::parseSegmentId))
+                    .toList();
+        }
+        int recoveredRecords = 0;
+        for (Path segmentFile : segmentFiles) {
+            if (activeSegment != null) {
+                activeSegment.seal();
+                sealedSegments.add(activeSegment);
+            }
+            activeSegment = openSegment(parseSegmentId(segmentFile), (int) Math.max(Files.size(segmentFile), Constants.WAL_SEGMENT_SIZE));
+            LogSegment segment = activeSegment;
+            recoveredRecords += segment.recover(body -> replayRecord(body, segment));
+        }
+        return recoveredRecords;
+    }
+
+    private void replayRecord(byte[] body, LogSegment segment) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        LogRecordType type = LogRecordType.fromCode(buffer.get());
+        long messageId = buffer.getLong();
+        if (type == LogRecordType.ACCEPTED) {
+            LoggedMessage message = decodeAccepted(messageId, buffer);
+            PendingMessage previous = pendingMessages.put(messageId, new PendingMessage(message, segment));
+            if (previous != null) {
+                previous.segment.messageDelivered();
+            }
+            segment.messageAccepted();
+            if ((messageId >>> NODE_ID_SHIFT) == nodeId) {
+                messageSequence.accumulateAndGet(messageId & SEQUENCE_MASK, Math::max);
+            }
+        } else if (type == LogRecordType.DELIVERED) {
+            PendingMessage pendingMessage = pendingMessages.remove(messageId);
+            if (pendingMessage != null) {
+                pendingMessage.segment.messageDelivered();
+            }
+        }
+    }
+
+    private LogSegment openSegment(long segmentId, int segmentSize) throws IOException {
+        return new LogSegment(segmentId, directory.resolve(SEGMENT_PREFIX + segmentId + SEGMENT_SUFFIX), segmentSize);
+    }
+
+    private static long parseSegmentId(Path path) {
+        String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encodeAccepted(LoggedMessage message) {
+        byte[] text = message.message().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(ACCEPTED_HEADER_SIZE + text.length)
+                .put(LogRecordType.ACCEPTED.getCode())
+                .putLong(message.messageId())
+                .putLong(message.acceptedAt())
+                .putInt(message.senderId())
+                .putInt(message.receiverId())
+                .put(text)
+                .array();
+    }
+
+    private static LoggedMessage decodeAccepted(long messageId, ByteBuffer buffer) {
+        long acceptedAt = buffer.getLong();
+        int senderId = buffer.getInt();
+        int receiverId = buffer.getInt();
+        byte[] text = new byte[buffer.remaining()];
+        buffer.get(text);
+        return new LoggedMessage(messageId, senderId, receiverId, acceptedAt, new String(text, StandardCharsets.UTF_8));
+    }
+
+    private record PendingMessage(LoggedMessage message, LogSegment segment) {
+    }
+
+    private static final class WriteRequest {
+        private final LogRecordType type;
+        private final long messageId;
+        private final LoggedMessage message;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private WriteRequest(LogRecordType type, long messageId, LoggedMessage message) {
+            this.type = type;
+            this.messageId = messageId;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.dsva.wal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RecentMessageIds {
+    private final Map<Long, Boolean> seenMessageIds;
+
+    public RecentMessageIds(int capacity) {
+        this.seenMessageIds = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns false when the message id was already seen. Messages without an id are never treated as duplicates.
+     */
+    public synchronized boolean markSeen(long messageId) {
+        if (messageId == 0) {
+            return true;
+        }
+        return seenMessageIds.put(messageId, Boolean.TRUE) == null;
+    }
+}
@@ -0,0 +1,51 @@
+package com.dsva.client;
+
+import com.dsva.model.Constants;
+import com.dsva.model.TimeoutKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RttTrackerTest {
+
+    @Test
+    void usesTheInitialTimeoutForUnknownPeers() {
+        RttTracker rttTracker = new RttTracker();
+
+        assertEquals(Constants.RTT_INITIAL_TIMEOUT, rttTracker.getTimeout(1, TimeoutKind.HEARTBEAT));
+    }
+
+    @Test
+    void assumesUnknownPeersAreAsSlowAsTheSlowestKnownOne() {
+        RttTracker rttTracker = new RttTracker();
+        rttTracker.recordSample(1, TimeUnit.MILLISECONDS.toNanos(10));
+        rttTracker.recordSample(2, TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertEquals(300, rttTracker.getTimeout(3, TimeoutKind.HEARTBEAT));
+        assertEquals(300, rttTracker.getTimeout(List.of(1, 2), TimeoutKind.HEARTBEAT));
+    }
+
+    @Test
+    void appliesTheFloorBeforeTheMultiplier() {
+        RttTracker rttTracker = new RttTracker();
+        rttTracker.recordSample(1, TimeUnit.MICROSECONDS.toNanos(100));
+
+        assertEquals(Constants.RTT_MIN_TIMEOUT, rttTracker.getTimeout(1, TimeoutKind.HEARTBEAT));
+        assertEquals(3 * Constants.RTT_MIN_TIMEOUT, rttTracker.getTimeout(1, TimeoutKind.RELAY));
+        assertEquals(6 * Constants.RTT_MIN_TIMEOUT, rttTracker.getTimeout(1, TimeoutKind.RELAY_END_TO_END));
+    }
+
+    @Test
+    void clampsTheBackedOffTimeoutToTheMaximum() {
+        RttTracker rttTracker = new RttTracker();
+        rttTracker.recordSample(1, TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 0; i < 10; i++) {
+            rttTracker.recordTimeout(1);
+        }
+
+        assertEquals(Constants.RTT_MAX_TIMEOUT, rttTracker.getTimeout(1, TimeoutKind.HEARTBEAT));
+    }
+}
@@ -0,0 +1,110 @@
+package com.dsva.mailbox;
+
+import com.proto.chat_bully.MessageRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MailboxTest {
+    private static final long NO_OVERFLOW_LIMIT = 1024 * 1024;
+
+    @Test
+    void spillsIntoOverflowOnceTheRingIsFull() {
+        Mailbox mailbox = new Mailbox(2, NO_OVERFLOW_LIMIT);
+
+        for (int id = 1; id <= 4; id++) {
+            assertEquals(0, mailbox.offer(message(id)));
+        }
+
+        assertEquals(4, mailbox.size());
+        assertEquals(List.of(1L, 2L), ids(mailbox.pollBatch(10)));
+    }
+
+    @Test
+    void returnsUndeliveredMessagesToTheFrontWithoutExceedingTheRing() {
+        Mailbox mailbox = new Mailbox(2, NO_OVERFLOW_LIMIT);
+        for (int id = 1; id <= 4; id++) {
+            mailbox.offer(message(id));
+        }
+
+        List<HeldMessage> batch = mailbox.pollBatch(2);
+        mailbox.offer(message(5));
+        mailbox.completeBatch(batch.size(), List.of(batch.get(1)));
+
+        List<HeldMessage> retry = mailbox.pollBatch(10);
+        assertEquals(List.of(2L, 3L), ids(retry));
+        mailbox.completeBatch(retry.size(), List.of());
+        assertEquals(List.of(4L, 5L), ids(mailbox.pollBatch(10)));
+    }
+
+    @Test
+    void keepsSlotsOfAnInFlightBatchReserved() {
+        Mailbox mailbox = new Mailbox(2, NO_OVERFLOW_LIMIT);
+        mailbox.offer(message(1));
+        mailbox.offer(message(2));
+
+        List<HeldMessage> batch = mailbox.pollBatch(2);
+        mailbox.offer(message(3));
+        mailbox.completeBatch(batch.size(), batch);
+
+        assertEquals(3, mailbox.size());
+        assertEquals(List.of(1L, 2L), ids(mailbox.pollBatch(10)));
+    }
+
+    @Test
+    void evictsTheOldestMessageWhenTheOverflowIsFull() {
+        int recordSize = OffHeapMessageQueueTest.recordSize(message(1));
+        Mailbox mailbox = new Mailbox(1, 2L * recordSize);
+        for (int id = 1; id <= 3; id++) {
+            mailbox.offer(message(id));
+        }
+
+        assertEquals(1, mailbox.offer(message(4)));
+
+        assertEquals(3, mailbox.size());
+        assertEquals(List.of(2L), ids(mailbox.pollBatch(10)));
+    }
+
+    @Test
+    void rejectsAMessageLargerThanTheOverflow() {
+        Mailbox mailbox = new Mailbox(1, 16);
+        mailbox.offer(message(1));
+
+        assertEquals(-1, mailbox.offer(message(2)));
+    }
+
+    @Test
+    void evictsByAgeAroundAnInFlightBatch() {
+        Mailbox mailbox = new Mailbox(2, NO_OVERFLOW_LIMIT);
+        for (int id = 1; id <= 4; id++) {
+            mailbox.offer(message(id, id * 10L));
+        }
+
+        List<HeldMessage> batch = mailbox.pollBatch(2);
+        assertEquals(1, mailbox.evictOlderThan(35));
+        mailbox.completeBatch(batch.size(), batch);
+
+        assertEquals(3, mailbox.size());
+        assertEquals(2, mailbox.evictOlderThan(35));
+        assertEquals(List.of(4L), ids(mailbox.pollBatch(10)));
+    }
+
+    static HeldMessage message(long messageId) {
+        return message(messageId, System.currentTimeMillis());
+    }
+
+    static HeldMessage message(long messageId, long heldAt) {
+        return new HeldMessage(MessageRequest.newBuilder()
+                .setMessageId(messageId)
+                .setSenderId(1)
+                .setReceiverId(2)
+                .setMessage("message " + messageId)
+                .build(), heldAt);
+    }
+
+    private static List<Long> ids(List<HeldMessage> messages) {
+        return messages.stream().map(message -> message.request().getMessageId()).toList();
+    }
+}
@@ -0,0 +1,96 @@
+package com.dsva.mailbox;
+
+import com.proto.chat_bully.MessageRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Messages with a 20 KB body fill a 64 KB chunk with three records, so the tests below cross chunk boundaries.
+ */
+class OffHeapMessageQueueTest {
+    private static final String LARGE_BODY = "x".repeat(20 * 1024);
+
+    @Test
+    void keepsFifoOrderAcrossChunks() {
+        OffHeapMessageQueue queue = new OffHeapMessageQueue(1024 * 1024);
+        for (int id = 1; id <= 10; id++) {
+            assertTrue(queue.offer(largeMessage(id)));
+        }
+
+        for (int id = 1; id <= 10; id++) {
+            HeldMessage message = queue.poll();
+            assertEquals(id, message.request().getMessageId());
+            assertEquals(id, message.heldAt());
+        }
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getUsedBytes());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void reusesTheLastChunkOnceItIsDrained() {
+        OffHeapMessageQueue queue = new OffHeapMessageQueue(1024 * 1024);
+        queue.offer(largeMessage(1));
+        queue.offer(largeMessage(2));
+        queue.poll();
+        queue.poll();
+
+        assertEquals(Long.MAX_VALUE, queue.peekHeldAt());
+        for (int id = 3; id <= 5; id++) {
+            queue.offer(largeMessage(id));
+        }
+
+        assertEquals(3, queue.peekHeldAt());
+        for (int id = 3; id <= 5; id++) {
+            assertEquals(id, queue.poll().request().getMessageId());
+        }
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void continuesWithTheNextChunkAfterDroppingADrainedOne() {
+        OffHeapMessageQueue queue = new OffHeapMessageQueue(1024 * 1024);
+        for (int id = 1; id <= 4; id++) {
+            queue.offer(largeMessage(id));
+        }
+        for (int id = 1; id <= 3; id++) {
+            queue.poll();
+        }
+
+        queue.offer(largeMessage(5));
+
+        assertEquals(4, queue.poll().request().getMessageId());
+        assertEquals(5, queue.poll().request().getMessageId());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void rejectsMessagesBeyondTheByteLimitUntilSpaceIsFreed() {
+        HeldMessage message = largeMessage(1);
+        OffHeapMessageQueue queue = new OffHeapMessageQueue(2L * recordSize(message));
+        assertTrue(queue.offer(message));
+        assertTrue(queue.offer(largeMessage(2)));
+
+        assertFalse(queue.offer(largeMessage(3)));
+        assertEquals(2, queue.size());
+
+        queue.poll();
+        assertTrue(queue.offer(largeMessage(3)));
+        assertEquals(2 * recordSize(message), queue.getUsedBytes());
+    }
+
+    static int recordSize(HeldMessage message) {
+        return Long.BYTES + Integer.BYTES + message.request().getSerializedSize();
+    }
+
+    private static HeldMessage largeMessage(long messageId) {
+        return new HeldMessage(MessageRequest.newBuilder()
+                .setMessageId(messageId)
+                .setMessage(LARGE_BODY)
+                .build(), messageId);
+    }
+}
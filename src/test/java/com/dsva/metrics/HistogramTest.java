@@ -0,0 +1,75 @@
+package com.dsva.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HistogramTest {
+
+    @Test
+    void keepsValuesBelowThirtyTwoInExactBuckets() {
+        assertEquals(15, Histogram.bucketIndex(15));
+        assertEquals(16, Histogram.bucketIndex(16));
+        assertEquals(31, Histogram.bucketIndex(31));
+        assertEquals(31, Histogram.bucketUpperBound(Histogram.bucketIndex(31)));
+    }
+
+    @Test
+    void splitsEachPowerOfTwoIntoSixteenBuckets() {
+        assertEquals(32, Histogram.bucketIndex(32));
+        assertEquals(32, Histogram.bucketIndex(33));
+        assertEquals(33, Histogram.bucketIndex(34));
+        assertEquals(33, Histogram.bucketUpperBound(32));
+        assertEquals(63, Histogram.bucketUpperBound(Histogram.bucketIndex(63)));
+        assertEquals(48, Histogram.bucketIndex(64));
+    }
+
+    @Test
+    void mapsLongMaxValueToTheLastBucket() {
+        int index = Histogram.bucketIndex(Long.MAX_VALUE);
+
+        assertEquals((Long.SIZE - 4) * 16 - 1, index);
+        assertEquals(Long.MAX_VALUE, Histogram.bucketUpperBound(index));
+    }
+
+    @Test
+    void reportsZeroForAnEmptyHistogram() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    void reportsExactPercentilesForSmallValues() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 30; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(15, histogram.getPercentile(50));
+        assertEquals(30, histogram.getPercentile(100));
+    }
+
+    @Test
+    void reportsTheUpperBoundOfTheBucketCappedByTheMax() {
+        Histogram histogram = new Histogram();
+        histogram.record(100);
+        histogram.record(1000);
+
+        assertEquals(103, histogram.getPercentile(50));
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    void recordsExtremeValues() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+}
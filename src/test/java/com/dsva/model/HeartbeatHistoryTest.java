@@ -0,0 +1,62 @@
+package com.dsva.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeartbeatHistoryTest {
+    private static final long INTERVAL = 100;
+    private static final long MIN_STD_DEVIATION = 10;
+
+    @Test
+    void assumesTheExpectedIntervalWithoutHistory() {
+        HeartbeatHistory history = new HeartbeatHistory(10, 0);
+
+        assertEquals(Math.log10(2), history.phi(INTERVAL, INTERVAL, MIN_STD_DEVIATION), 1e-9);
+        assertTrue(history.phi(0, INTERVAL, MIN_STD_DEVIATION) < 0.1);
+        assertTrue(history.phi(4 * INTERVAL, INTERVAL, MIN_STD_DEVIATION) > Constants.PHI_SUSPICION_THRESHOLD);
+    }
+
+    @Test
+    void growsWhileHeartbeatsAreMissing() {
+        HeartbeatHistory history = regularHistory(10, 20);
+
+        double previousPhi = 0;
+        for (long delay = INTERVAL; delay <= 5 * INTERVAL; delay += INTERVAL) {
+            double phi = history.phi(history.getLastArrivalMillis() + delay, INTERVAL, 50);
+            assertTrue(phi > previousPhi);
+            previousPhi = phi;
+        }
+        assertTrue(previousPhi > Constants.PHI_SUSPICION_THRESHOLD);
+    }
+
+    @Test
+    void usesTheMinimumDeviationForPerfectlyRegularHeartbeats() {
+        HeartbeatHistory history = regularHistory(10, 20);
+        long lastArrival = history.getLastArrivalMillis();
+
+        assertEquals(Math.log10(2), history.phi(lastArrival + INTERVAL, INTERVAL, MIN_STD_DEVIATION), 1e-9);
+        assertTrue(history.phi(lastArrival + 2 * INTERVAL, INTERVAL, 50) < Constants.PHI_SUSPICION_THRESHOLD);
+        assertTrue(history.phi(lastArrival + 2 * INTERVAL, INTERVAL, MIN_STD_DEVIATION) > Constants.PHI_SUSPICION_THRESHOLD);
+    }
+
+    @Test
+    void forgetsIntervalsOlderThanItsCapacity() {
+        HeartbeatHistory history = new HeartbeatHistory(2, 0);
+        history.recordArrival(1000);
+        history.recordArrival(2000);
+        history.recordArrival(2000 + INTERVAL);
+        history.recordArrival(2000 + 2 * INTERVAL);
+
+        assertTrue(history.phi(2000 + 5 * INTERVAL, INTERVAL, 50) > 3);
+    }
+
+    private static HeartbeatHistory regularHistory(int capacity, int heartbeats) {
+        HeartbeatHistory history = new HeartbeatHistory(capacity, 0);
+        for (int i = 1; i <= heartbeats; i++) {
+            history.recordArrival(i * INTERVAL);
+        }
+        return history;
+    }
+}
@@ -0,0 +1,61 @@
+package com.dsva.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RttEstimatorTest {
+
+    @Test
+    void initializesFromTheFirstSample() {
+        RttEstimator estimator = new RttEstimator();
+        assertFalse(estimator.isSampled());
+
+        estimator.recordSample(TimeUnit.MILLISECONDS.toNanos(100));
+
+        assertTrue(estimator.isSampled());
+        assertEquals(100, estimator.getSmoothedRttMillis(), 1e-9);
+        assertEquals(300, estimator.getRetransmissionTimeoutMillis(), 1e-9);
+    }
+
+    @Test
+    void smoothsFurtherSamples() {
+        RttEstimator estimator = new RttEstimator();
+        estimator.recordSample(TimeUnit.MILLISECONDS.toNanos(100));
+
+        estimator.recordSample(TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertEquals(112.5, estimator.getSmoothedRttMillis(), 1e-9);
+        assertEquals(112.5 + 4 * 62.5, estimator.getRetransmissionTimeoutMillis(), 1e-9);
+    }
+
+    @Test
+    void doublesTheBackoffPerTimeoutUpToItsLimit() {
+        RttEstimator estimator = new RttEstimator();
+        assertEquals(1, estimator.getBackoffMultiplier());
+
+        estimator.recordTimeout();
+        estimator.recordTimeout();
+        assertEquals(4, estimator.getBackoffMultiplier());
+
+        for (int i = 0; i < 10; i++) {
+            estimator.recordTimeout();
+        }
+        assertEquals(64, estimator.getBackoffMultiplier());
+    }
+
+    @Test
+    void resetsTheBackoffOnTheNextSample() {
+        RttEstimator estimator = new RttEstimator();
+        estimator.recordTimeout();
+        estimator.recordTimeout();
+
+        estimator.recordSample(TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertEquals(1, estimator.getBackoffMultiplier());
+    }
+}
@@ -0,0 +1,77 @@
+package com.dsva.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopologySnapshotTest {
+    private static final Address MY_ADDRESS = address(3);
+
+    @Test
+    void keepsOtherNodesSortedAndLeavesOutItself() {
+        TopologySnapshot snapshot = snapshot(5, 1, 3, 4, 2);
+
+        assertEquals(List.of(1, 2, 4, 5), ids(snapshot.getAddresses()));
+        assertFalse(snapshot.contains(MY_ADDRESS.nodeId()));
+        assertEquals(address(4), snapshot.get(4));
+        assertNull(snapshot.get(6));
+    }
+
+    @Test
+    void returnsNodesAboveAnyId() {
+        TopologySnapshot snapshot = snapshot(1, 2, 4, 5);
+
+        assertEquals(List.of(4, 5), ids(snapshot.getHigherNodes(3)));
+        assertEquals(List.of(5), ids(snapshot.getHigherNodes(4)));
+        assertEquals(List.of(1, 2, 4, 5), ids(snapshot.getHigherNodes(0)));
+        assertTrue(snapshot.getHigherNodes(5).isEmpty());
+    }
+
+    @Test
+    void removesTheHighestNode() {
+        TopologySnapshot snapshot = snapshot(1, 2, 4, 5).withChanges(List.of(), List.of(5));
+
+        assertEquals(List.of(1, 2, 4), ids(snapshot.getAddresses()));
+        assertEquals(List.of(4), ids(snapshot.getHigherNodes(3)));
+        assertFalse(snapshot.contains(5));
+    }
+
+    @Test
+    void removesTheLowestNode() {
+        TopologySnapshot snapshot = snapshot(1, 2, 4, 5).withChanges(List.of(), List.of(1));
+
+        assertEquals(List.of(2, 4, 5), ids(snapshot.getAddresses()));
+        assertEquals(List.of(2, 4, 5), ids(snapshot.getHigherNodes(1)));
+        assertNull(snapshot.get(1));
+    }
+
+    @Test
+    void replacesTheAddressOfARejoinedNode() {
+        Address movedAddress = new Address(Constants.HOSTNAME, 60004, 4);
+        TopologySnapshot snapshot = snapshot(1, 4).withChanges(List.of(movedAddress, address(6)), List.of(7));
+
+        assertEquals(List.of(1, 4, 6), ids(snapshot.getAddresses()));
+        assertEquals(movedAddress, snapshot.get(4));
+        assertEquals(3, snapshot.getAvailableNodesProtoAddresses().getAddressesCount() - 1);
+        assertEquals(60004, snapshot.getAvailableNodesProtoAddresses().getAddresses(1).getPort());
+    }
+
+    private static TopologySnapshot snapshot(int... nodeIds) {
+        List<Address> addresses = Arrays.stream(nodeIds).mapToObj(TopologySnapshotTest::address).toList();
+        return TopologySnapshot.empty(MY_ADDRESS).withAddresses(addresses);
+    }
+
+    private static Address address(int nodeId) {
+        return new Address(Constants.HOSTNAME, Constants.DEFAULT_PORT + nodeId, nodeId);
+    }
+
+    private static List<Integer> ids(List<Address> addresses) {
+        return addresses.stream().map(Address::nodeId).toList();
+    }
+}
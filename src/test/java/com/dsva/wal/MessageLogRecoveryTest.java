@@ -0,0 +1,119 @@
+package com.dsva.wal;
+
+import com.dsva.metrics.MetricsRegistry;
+import com.dsva.model.Constants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs with 512 byte segments (see the test task in build.gradle): two messages with a 200 character body fill a
+ * segment, so the layout below is deterministic.
+ */
+class MessageLogRecoveryTest {
+    private static final int NODE_ID = 1;
+    private static final String BODY = "x".repeat(200);
+
+    private final Path directory = Path.of(Constants.WAL_DIRECTORY, "node-" + NODE_ID);
+    private MessageLog messageLog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        deleteDirectory();
+        messageLog = openLog();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        messageLog.close();
+        deleteDirectory();
+    }
+
+    @Test
+    void keepsDeliveredMarkersForMessagesOfOlderRetainedSegment() throws Exception {
+        LoggedMessage first = accept();
+        LoggedMessage retained = accept();
+        // segment 0 is full: first and retained
+        LoggedMessage second = accept();
+        deliver(first);
+        deliver(second);
+        LoggedMessage third = accept();
+        // segment 1 is full: second, DELIVERED first, DELIVERED second, third
+        LoggedMessage fourth = accept();
+        deliver(third);
+        deliver(fourth);
+        // segment 1 has no outstanding messages but holds the DELIVERED marker of first
+
+        messageLog.close();
+        messageLog = openLog();
+
+        assertEquals(List.of(retained.messageId()), undeliveredIds());
+    }
+
+    @Test
+    void deletesSegmentsOnceAllOlderMessagesAreDelivered() throws Exception {
+        LoggedMessage first = accept();
+        LoggedMessage retained = accept();
+        LoggedMessage second = accept();
+        deliver(first);
+        deliver(second);
+        LoggedMessage third = accept();
+        LoggedMessage fourth = accept();
+        deliver(third);
+        deliver(fourth);
+        deliver(retained);
+
+        messageLog.close();
+        assertEquals(1, segmentCount());
+        messageLog = openLog();
+
+        assertTrue(undeliveredIds().isEmpty());
+    }
+
+    private MessageLog openLog() throws IOException {
+        MessageLog log = new MessageLog(NODE_ID, new MetricsRegistry());
+        log.open();
+        return log;
+    }
+
+    private LoggedMessage accept() throws Exception {
+        LoggedMessage message = new LoggedMessage(messageLog.nextMessageId(), 2, 3, System.currentTimeMillis(), BODY);
+        messageLog.appendAccepted(message).get();
+        return message;
+    }
+
+    private void deliver(LoggedMessage message) throws Exception {
+        messageLog.markDelivered(message.messageId()).get();
+    }
+
+    private List<Long> undeliveredIds() {
+        return messageLog.getUndeliveredMessages().stream().map(LoggedMessage::messageId).toList();
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private void deleteDirectory() throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}